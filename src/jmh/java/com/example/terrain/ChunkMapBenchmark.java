@@ -0,0 +1,117 @@
+package com.example.terrain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChunkMapBenchmark {
+    @Param({"4", "16"})
+    public int radius;
+
+    private Map<Long, Chunk> concurrentMap;
+    private LongObjectMap<Chunk> longMap;
+    private int shift;
+
+    @Setup
+    public void setup() {
+        concurrentMap = new ConcurrentHashMap<>();
+        longMap = new LongObjectMap<>((2 * radius + 1) * (2 * radius + 1));
+        for (int z = -radius; z <= radius; z++) {
+            for (int x = -radius; x <= radius; x++) {
+                Chunk chunk = new Chunk(x, z, 64);
+                concurrentMap.put(pack(x, z), chunk);
+                longMap.put(pack(x, z), chunk);
+            }
+        }
+    }
+
+    @Benchmark
+    public int concurrentLookup() {
+        int found = 0;
+        for (int z = -radius; z <= radius; z++) {
+            for (int x = -radius; x <= radius; x++) {
+                if (concurrentMap.get(pack(x, z)) != null) {
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int longLookup() {
+        int found = 0;
+        for (int z = -radius; z <= radius; z++) {
+            for (int x = -radius; x <= radius; x++) {
+                if (longMap.get(pack(x, z)) != null) {
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int concurrentIterate() {
+        int sum = 0;
+        for (Chunk chunk : concurrentMap.values()) {
+            sum += chunk.getChunkX();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int longIterateDense() {
+        int sum = 0;
+        for (int i = 0; i < longMap.size(); i++) {
+            sum += longMap.valueAt(i).getChunkX();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int concurrentChurn() {
+        int leaving = shift - radius;
+        int entering = shift + radius + 1;
+        for (int z = -radius; z <= radius; z++) {
+            Chunk chunk = concurrentMap.remove(pack(leaving, z));
+            concurrentMap.put(pack(entering, z), chunk);
+        }
+        shift++;
+        return concurrentMap.size();
+    }
+
+    @Benchmark
+    public int longChurn() {
+        int leaving = shift - radius;
+        int entering = shift + radius + 1;
+        for (int z = -radius; z <= radius; z++) {
+            Chunk chunk = longMap.remove(pack(leaving, z));
+            longMap.put(pack(entering, z), chunk);
+        }
+        shift++;
+        return longMap.size();
+    }
+
+    private static long pack(int x, int z) {
+        return (((long) x) << 32) ^ (z & 0xffffffffL);
+    }
+}
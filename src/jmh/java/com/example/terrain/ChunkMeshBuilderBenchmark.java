@@ -0,0 +1,50 @@
+package com.example.terrain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChunkMeshBuilderBenchmark {
+    @Param({"32", "64", "128"})
+    public int chunkSize;
+
+    @Param({"0", "1", "2", "3"})
+    public int lod;
+
+    @Param({"1337", "42"})
+    public int seed;
+
+    private ChunkMeshBuilder builder;
+    private BufferPool vertexPool;
+    private int chunkX;
+
+    @Setup
+    public void setup() {
+        vertexPool = new BufferPool(16L * 1024 * 1024);
+        builder = new ChunkMeshBuilder(new TerrainGenerator(seed), chunkSize, vertexPool);
+    }
+
+    @Benchmark
+    public ChunkMeshData build() {
+        chunkX = (chunkX + 1) & 63;
+        ChunkMeshData data = builder.build(chunkX, 3, lod);
+        vertexPool.release(data.vertices());
+        return data;
+    }
+}
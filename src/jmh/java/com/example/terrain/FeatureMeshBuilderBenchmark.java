@@ -0,0 +1,49 @@
+package com.example.terrain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeatureMeshBuilderBenchmark {
+    private static final long TILE_CACHE_BYTES = 64L * 1024 * 1024;
+
+    @Param({"32", "64", "128"})
+    public int chunkSize;
+
+    @Param({"1337", "42"})
+    public int seed;
+
+    private FeatureMeshBuilder builder;
+    private int chunkX;
+
+    @Setup
+    public void setup() {
+        builder = new FeatureMeshBuilder(new HeightTileCache(new TerrainGenerator(seed), chunkSize, TILE_CACHE_BYTES), chunkSize, seed);
+    }
+
+    @Benchmark
+    public FeatureLodData build() {
+        return builder.build(nextChunk(), 3);
+    }
+
+    private int nextChunk() {
+        chunkX = (chunkX + 1) & 63;
+        return chunkX;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.terrain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenerationBenchmark {
+    @Param({"1337", "42"})
+    public int seed;
+
+    private Noise2D noise;
+    private BiomeMap biomeMap;
+    private TerrainGenerator generator;
+    private float[] gridWeights;
+    private float x;
+    private float z;
+
+    @Setup
+    public void setup() {
+        noise = new Noise2D(seed);
+        biomeMap = new BiomeMap(seed ^ 0x5f3759df, 256.0f);
+        generator = new TerrainGenerator(seed);
+        gridWeights = new float[65 * 65 * 3];
+    }
+
+    @Benchmark
+    public float noiseFbm() {
+        advance();
+        return noise.fbm(x * 0.01f, z * 0.01f, 5, 2.0f, 0.5f);
+    }
+
+    @Benchmark
+    public BiomeSample biomeSample() {
+        advance();
+        return biomeMap.sample(x, z);
+    }
+
+    @Benchmark
+    public float[] biomeSampleGrid() {
+        advance();
+        biomeMap.sampleGrid((int) x, (int) z, 1, 65, 65, gridWeights);
+        return gridWeights;
+    }
+
+    @Benchmark
+    public float generatorHeight() {
+        advance();
+        return generator.getHeight(x, z);
+    }
+
+    private void advance() {
+        x += 1.0f;
+        if (x >= 4096.0f) {
+            x = 0.0f;
+            z += 1.0f;
+        }
+    }
+}
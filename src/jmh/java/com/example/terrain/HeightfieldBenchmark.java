@@ -0,0 +1,80 @@
+package com.example.terrain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeightfieldBenchmark {
+    @Param({"1", "2"})
+    public int step;
+
+    private TerrainGenerator generator;
+    private int vertsPerSide;
+    private float[] heights;
+    private float[] biomeWeights;
+    private float[] slopes;
+    private int chunkX;
+
+    @Setup
+    public void setup() {
+        generator = new TerrainGenerator(1337);
+        vertsPerSide = 64 / step + 1;
+        heights = new float[vertsPerSide * vertsPerSide];
+        biomeWeights = new float[vertsPerSide * vertsPerSide * 3];
+        slopes = new float[vertsPerSide * vertsPerSide * 2];
+    }
+
+    @Benchmark
+    public float[] perVertex() {
+        int originX = nextChunk() * 64;
+        int originZ = 128;
+        for (int z = 0; z < vertsPerSide; z++) {
+            for (int x = 0; x < vertsPerSide; x++) {
+                float worldX = originX + x * step;
+                float worldZ = originZ + z * step;
+                int sample = z * vertsPerSide + x;
+                heights[sample] = generator.getHeight(worldX, worldZ);
+                BiomeSample biome = generator.sampleBiome(worldX, worldZ);
+                biomeWeights[sample * 3] = biome.grasslandWeight();
+                biomeWeights[sample * 3 + 1] = biome.highlandsWeight();
+                biomeWeights[sample * 3 + 2] = biome.tundraWeight();
+            }
+        }
+        return heights;
+    }
+
+    @Benchmark
+    public float[] fillHeights() {
+        int originX = nextChunk() * 64;
+        generator.fillHeights(originX, 128, step, vertsPerSide, vertsPerSide, heights, biomeWeights, slopes);
+        return heights;
+    }
+
+    @Benchmark
+    public float[] fillHeightsOnly() {
+        int originX = nextChunk() * 64;
+        generator.fillHeights(originX, 128, step, vertsPerSide, vertsPerSide, heights, biomeWeights);
+        return heights;
+    }
+
+    private int nextChunk() {
+        chunkX = (chunkX + 1) & 63;
+        return chunkX;
+    }
+}
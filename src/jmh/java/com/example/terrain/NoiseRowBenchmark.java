@@ -0,0 +1,73 @@
+package com.example.terrain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NoiseRowBenchmark {
+    @Param({"33", "65", "129"})
+    public int width;
+
+    private Noise2D noise;
+    private float[] xs;
+    private float[] out;
+    private float[] outDx;
+    private float[] outDz;
+    private float z;
+
+    @Setup
+    public void setup() {
+        noise = new Noise2D(1337);
+        xs = new float[width];
+        out = new float[width];
+        outDx = new float[width];
+        outDz = new float[width];
+        for (int i = 0; i < width; i++) {
+            xs[i] = i * 0.012f;
+        }
+    }
+
+    @Benchmark
+    public float[] scalarRow() {
+        z += 0.012f;
+        noise.fbmRowScalar(xs, width, z, 5, 2.0f, 0.5f, out);
+        return out;
+    }
+
+    @Benchmark
+    public float[] row() {
+        z += 0.012f;
+        noise.fbmRow(xs, width, z, 5, 2.0f, 0.5f, out);
+        return out;
+    }
+
+    @Benchmark
+    public float[] scalarDerivativeRow() {
+        z += 0.012f;
+        noise.fbmRowDerivativesScalar(xs, width, z, 5, 2.0f, 0.5f, out, outDx, outDz);
+        return outDz;
+    }
+
+    @Benchmark
+    public float[] derivativeRow() {
+        z += 0.012f;
+        noise.fbmRowDerivatives(xs, width, z, 5, 2.0f, 0.5f, out, outDx, outDz);
+        return outDz;
+    }
+}
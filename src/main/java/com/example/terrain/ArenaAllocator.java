@@ -0,0 +1,103 @@
+package com.example.terrain;
+
+import java.util.Comparator;
+import java.util.TreeSet;
+
+public class ArenaAllocator {
+    private static final Comparator<Block> BY_SIZE = Comparator.<Block>comparingLong(block -> block.size)
+            .thenComparingLong(block -> block.offset);
+
+    private final long capacity;
+    private final TreeSet<Block> freeBySize = new TreeSet<>(BY_SIZE);
+    private final LongObjectMap<Block> freeByStart = new LongObjectMap<>();
+    private final LongObjectMap<Block> freeByEnd = new LongObjectMap<>();
+    private final LongObjectMap<Block> liveBlocks = new LongObjectMap<>();
+    private final Block probe = new Block(Long.MIN_VALUE, 0);
+    private long used;
+
+    public ArenaAllocator(long capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Invalid arena capacity " + capacity);
+        }
+        this.capacity = capacity;
+        addFree(new Block(0, capacity));
+    }
+
+    public long allocate(long size) {
+        if (size <= 0) {
+            return -1;
+        }
+        probe.size = size;
+        Block block = freeBySize.ceiling(probe);
+        if (block == null) {
+            return -1;
+        }
+        removeFree(block);
+        long offset = block.offset;
+        if (block.size > size) {
+            addFree(new Block(offset + size, block.size - size));
+        }
+        block.size = size;
+        liveBlocks.put(offset, block);
+        used += size;
+        return offset;
+    }
+
+    public void free(long offset) {
+        Block block = liveBlocks.remove(offset);
+        if (block == null) {
+            throw new IllegalStateException("No arena allocation at offset " + offset);
+        }
+        used -= block.size;
+        Block before = freeByEnd.get(block.offset);
+        if (before != null) {
+            removeFree(before);
+            block.offset = before.offset;
+            block.size += before.size;
+        }
+        Block after = freeByStart.get(block.offset + block.size);
+        if (after != null) {
+            removeFree(after);
+            block.size += after.size;
+        }
+        addFree(block);
+    }
+
+    public long getUsed() {
+        return used;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public long getLargestFreeBlock() {
+        return freeBySize.isEmpty() ? 0 : freeBySize.last().size;
+    }
+
+    public int getFreeBlockCount() {
+        return freeBySize.size();
+    }
+
+    private void addFree(Block block) {
+        freeBySize.add(block);
+        freeByStart.put(block.offset, block);
+        freeByEnd.put(block.offset + block.size, block);
+    }
+
+    private void removeFree(Block block) {
+        freeBySize.remove(block);
+        freeByStart.remove(block.offset);
+        freeByEnd.remove(block.offset + block.size);
+    }
+
+    private static final class Block {
+        private long offset;
+        private long size;
+
+        private Block(long offset, long size) {
+            this.offset = offset;
+            this.size = size;
+        }
+    }
+}
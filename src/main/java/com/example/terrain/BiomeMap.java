@@ -1,8 +1,8 @@
 package com.example.terrain;
 
-import org.joml.Vector2f;
-
 public class BiomeMap {
+    private static final BiomeType[] BIOMES = BiomeType.values();
+
     private final int seed;
     private final float biomeSize;
 
@@ -11,6 +11,10 @@ public class BiomeMap {
         this.biomeSize = biomeSize;
     }
 
+    public float getBiomeSize() {
+        return biomeSize;
+    }
+
     public BiomeSample sample(float worldX, float worldZ) {
         float cellX = worldX / biomeSize;
         float cellZ = worldZ / biomeSize;
@@ -26,9 +30,8 @@ public class BiomeMap {
             for (int dx = -1; dx <= 1; dx++) {
                 int cellOffsetX = baseX + dx;
                 int cellOffsetZ = baseZ + dz;
-                Vector2f offset = randomOffset(cellOffsetX, cellOffsetZ);
-                float featureX = (cellOffsetX + offset.x) * biomeSize;
-                float featureZ = (cellOffsetZ + offset.y) * biomeSize;
+                float featureX = featureX(cellOffsetX, cellOffsetZ);
+                float featureZ = featureZ(cellOffsetX, cellOffsetZ);
                 float dist = distanceSquared(worldX, worldZ, featureX, featureZ);
                 BiomeType biome = pickBiome(cellOffsetX, cellOffsetZ);
 
@@ -48,27 +51,117 @@ public class BiomeMap {
         float primaryWeight = 1.0f - blend;
         float secondaryWeight = blend;
 
-        float grass = 0.0f;
-        float high = 0.0f;
-        float tundra = 0.0f;
-
-        grass += closestBiome == BiomeType.GRASSLAND ? primaryWeight : 0.0f;
-        high += closestBiome == BiomeType.HIGHLANDS ? primaryWeight : 0.0f;
-        tundra += closestBiome == BiomeType.TUNDRA ? primaryWeight : 0.0f;
-
-        grass += secondBiome == BiomeType.GRASSLAND ? secondaryWeight : 0.0f;
-        high += secondBiome == BiomeType.HIGHLANDS ? secondaryWeight : 0.0f;
-        tundra += secondBiome == BiomeType.TUNDRA ? secondaryWeight : 0.0f;
+        float grass = weight(BiomeType.GRASSLAND, closestBiome, secondBiome, primaryWeight, secondaryWeight);
+        float high = weight(BiomeType.HIGHLANDS, closestBiome, secondBiome, primaryWeight, secondaryWeight);
+        float tundra = weight(BiomeType.TUNDRA, closestBiome, secondBiome, primaryWeight, secondaryWeight);
 
         float sum = grass + high + tundra + 0.0001f;
         return new BiomeSample(grass / sum, high / sum, tundra / sum);
     }
 
-    private Vector2f randomOffset(int cellX, int cellZ) {
+    public void sampleGrid(int originX, int originZ, int step, int width, int height, float[] weightsOut) {
+        sampleGrid(originX, originZ, step, width, height, weightsOut, null);
+    }
+
+    public void sampleGrid(int originX, int originZ, int step, int width, int height, float[] weightsOut, float[] weightSlopesOut) {
+        int minCellX = (int) Math.floor(originX / biomeSize) - 1;
+        int minCellZ = (int) Math.floor(originZ / biomeSize) - 1;
+        int maxCellX = (int) Math.floor((originX + (width - 1) * step) / biomeSize) + 1;
+        int maxCellZ = (int) Math.floor((originZ + (height - 1) * step) / biomeSize) + 1;
+        int cellsX = maxCellX - minCellX + 1;
+        int cellsZ = maxCellZ - minCellZ + 1;
+
+        float[] latticeX = ScratchArrays.floats(ScratchArrays.Slot.LATTICE_X, cellsX * cellsZ);
+        float[] latticeZ = ScratchArrays.floats(ScratchArrays.Slot.LATTICE_Z, cellsX * cellsZ);
+        int[] latticeBiome = ScratchArrays.ints(ScratchArrays.Slot.LATTICE_BIOME, cellsX * cellsZ);
+        for (int cz = 0; cz < cellsZ; cz++) {
+            for (int cx = 0; cx < cellsX; cx++) {
+                int cell = cz * cellsX + cx;
+                latticeX[cell] = featureX(minCellX + cx, minCellZ + cz);
+                latticeZ[cell] = featureZ(minCellX + cx, minCellZ + cz);
+                latticeBiome[cell] = pickBiome(minCellX + cx, minCellZ + cz).ordinal();
+            }
+        }
+
+        for (int z = 0; z < height; z++) {
+            float worldZ = originZ + z * step;
+            int baseZ = (int) Math.floor(worldZ / biomeSize) - minCellZ;
+            for (int x = 0; x < width; x++) {
+                float worldX = originX + x * step;
+                int baseX = (int) Math.floor(worldX / biomeSize) - minCellX;
+
+                float closestDist = Float.POSITIVE_INFINITY;
+                float secondDist = Float.POSITIVE_INFINITY;
+                int closestBiome = BiomeType.GRASSLAND.ordinal();
+                int secondBiome = BiomeType.HIGHLANDS.ordinal();
+                int closestCell = -1;
+                int secondCell = -1;
+
+                for (int dz = -1; dz <= 1; dz++) {
+                    int row = (baseZ + dz) * cellsX;
+                    for (int dx = -1; dx <= 1; dx++) {
+                        int cell = row + baseX + dx;
+                        float dist = distanceSquared(worldX, worldZ, latticeX[cell], latticeZ[cell]);
+                        if (dist < closestDist) {
+                            secondDist = closestDist;
+                            secondBiome = closestBiome;
+                            secondCell = closestCell;
+                            closestDist = dist;
+                            closestBiome = latticeBiome[cell];
+                            closestCell = cell;
+                        } else if (dist < secondDist) {
+                            secondDist = dist;
+                            secondBiome = latticeBiome[cell];
+                            secondCell = cell;
+                        }
+                    }
+                }
+
+                float ratio = (float) Math.sqrt(closestDist / (secondDist + 0.0001f));
+                float blend = smoothStep(0.0f, 1.0f, ratio);
+                float primaryWeight = 1.0f - blend;
+                float secondaryWeight = blend;
+
+                float grass = weight(BiomeType.GRASSLAND, BIOMES[closestBiome], BIOMES[secondBiome], primaryWeight, secondaryWeight);
+                float high = weight(BiomeType.HIGHLANDS, BIOMES[closestBiome], BIOMES[secondBiome], primaryWeight, secondaryWeight);
+                float tundra = weight(BiomeType.TUNDRA, BIOMES[closestBiome], BIOMES[secondBiome], primaryWeight, secondaryWeight);
+
+                float sum = grass + high + tundra + 0.0001f;
+                int out = (z * width + x) * 3;
+                weightsOut[out] = grass / sum;
+                weightsOut[out + 1] = high / sum;
+                weightsOut[out + 2] = tundra / sum;
+
+                if (weightSlopesOut != null) {
+                    float blendDx = 0.0f;
+                    float blendDz = 0.0f;
+                    if (ratio < 1.0f) {
+                        float denominator = secondDist + 0.0001f;
+                        float scale = 3.0f * (1.0f - ratio) / (denominator * denominator * sum);
+                        blendDx = scale * 2.0f * ((worldX - latticeX[closestCell]) * denominator - closestDist * (worldX - latticeX[secondCell]));
+                        blendDz = scale * 2.0f * ((worldZ - latticeZ[closestCell]) * denominator - closestDist * (worldZ - latticeZ[secondCell]));
+                    }
+                    int slope = out * 2;
+                    for (int b = 0; b < 6; b++) {
+                        weightSlopesOut[slope + b] = 0.0f;
+                    }
+                    weightSlopesOut[slope + closestBiome * 2] -= blendDx;
+                    weightSlopesOut[slope + closestBiome * 2 + 1] -= blendDz;
+                    weightSlopesOut[slope + secondBiome * 2] += blendDx;
+                    weightSlopesOut[slope + secondBiome * 2 + 1] += blendDz;
+                }
+            }
+        }
+    }
+
+    private float featureX(int cellX, int cellZ) {
         int hash = hash(cellX, cellZ);
-        float x = ((hash & 0xffff) / 65535.0f);
-        float z = (((hash >>> 16) & 0xffff) / 65535.0f);
-        return new Vector2f(x, z);
+        return (cellX + ((hash & 0xffff) / 65535.0f)) * biomeSize;
+    }
+
+    private float featureZ(int cellX, int cellZ) {
+        int hash = hash(cellX, cellZ);
+        return (cellZ + (((hash >>> 16) & 0xffff) / 65535.0f)) * biomeSize;
     }
 
     private BiomeType pickBiome(int cellX, int cellZ) {
@@ -83,6 +176,13 @@ public class BiomeMap {
         return BiomeType.TUNDRA;
     }
 
+    private float weight(BiomeType biome, BiomeType closestBiome, BiomeType secondBiome, float primaryWeight, float secondaryWeight) {
+        float weight = 0.0f;
+        weight += closestBiome == biome ? primaryWeight : 0.0f;
+        weight += secondBiome == biome ? secondaryWeight : 0.0f;
+        return weight;
+    }
+
     private int hash(int x, int z) {
         int h = seed;
         h ^= x * 0x27d4eb2d;
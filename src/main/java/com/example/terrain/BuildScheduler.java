@@ -0,0 +1,199 @@
+package com.example.terrain;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+public class BuildScheduler {
+    private static final float BEHIND_PENALTY = 1.0f;
+    private static final float DIRECTION_THRESHOLD = 0.95f;
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final int chunkSize;
+    private final Map<Long, BuildTask> pending = new HashMap<>();
+    private final Map<Long, BuildTask> running = new HashMap<>();
+    private final PriorityQueue<BuildTask> queue = new PriorityQueue<>((a, b) -> Float.compare(a.priority, b.priority));
+    private float cameraX;
+    private float cameraZ;
+    private float forwardX;
+    private float forwardZ = -1.0f;
+    private int cameraChunkX = Integer.MIN_VALUE;
+    private int cameraChunkZ = Integer.MIN_VALUE;
+    private Runnable submitListener = () -> {
+    };
+
+    public BuildScheduler(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    void setSubmitListener(Runnable submitListener) {
+        this.submitListener = submitListener;
+    }
+
+    public void submit(int chunkX, int chunkZ, int lod, Runnable work) {
+        submit(pack(chunkX, chunkZ), chunkX, chunkZ, 1, lod, work);
+    }
+
+    public void submit(long key, int chunkX, int chunkZ, int span, int lod, Runnable work) {
+        synchronized (this) {
+            BuildTask previous = pending.remove(key);
+            if (previous != null) {
+                queue.remove(previous);
+            }
+            running.remove(key);
+            enqueue(new BuildTask(key, chunkX, chunkZ, span, lod, work, System.nanoTime(), 1));
+        }
+        submitListener.run();
+    }
+
+    public synchronized void complete(BuildTask task) {
+        running.remove(task.key, task);
+    }
+
+    public boolean fail(BuildTask task) {
+        synchronized (this) {
+            if (!running.remove(task.key, task) || task.attempt >= MAX_ATTEMPTS) {
+                return false;
+            }
+            enqueue(new BuildTask(task.key, task.chunkX, task.chunkZ, task.span, task.lod, task.work, System.nanoTime(),
+                    task.attempt + 1));
+        }
+        submitListener.run();
+        return true;
+    }
+
+    public void cancel(int chunkX, int chunkZ) {
+        cancel(pack(chunkX, chunkZ));
+    }
+
+    public synchronized void cancel(long key) {
+        BuildTask task = pending.remove(key);
+        if (task != null) {
+            queue.remove(task);
+        }
+        running.remove(key);
+    }
+
+    public synchronized void updateView(float x, float z, float dirX, float dirZ) {
+        float length = (float) Math.sqrt(dirX * dirX + dirZ * dirZ);
+        if (length > 0.0001f) {
+            dirX /= length;
+            dirZ /= length;
+        } else {
+            dirX = forwardX;
+            dirZ = forwardZ;
+        }
+        int chunkX = (int) Math.floor(x / chunkSize);
+        int chunkZ = (int) Math.floor(z / chunkSize);
+        boolean moved = chunkX != cameraChunkX || chunkZ != cameraChunkZ;
+        boolean turned = dirX * forwardX + dirZ * forwardZ < DIRECTION_THRESHOLD;
+        cameraX = x;
+        cameraZ = z;
+        if (!moved && !turned) {
+            return;
+        }
+        cameraChunkX = chunkX;
+        cameraChunkZ = chunkZ;
+        forwardX = dirX;
+        forwardZ = dirZ;
+        if (queue.isEmpty()) {
+            return;
+        }
+        List<BuildTask> tasks = new ArrayList<>(queue);
+        queue.clear();
+        for (BuildTask task : tasks) {
+            task.priority = priority(task);
+        }
+        queue.addAll(tasks);
+    }
+
+    public synchronized BuildTask poll() {
+        BuildTask task = queue.poll();
+        if (task != null) {
+            pending.remove(task.key);
+            running.put(task.key, task);
+        }
+        return task;
+    }
+
+    public synchronized int pendingCount() {
+        return queue.size();
+    }
+
+    public synchronized void clear() {
+        pending.clear();
+        running.clear();
+        queue.clear();
+    }
+
+    private void enqueue(BuildTask task) {
+        task.priority = priority(task);
+        pending.put(task.key, task);
+        queue.add(task);
+    }
+
+    private float priority(BuildTask task) {
+        float dx = (task.chunkX + task.span * 0.5f) * chunkSize - cameraX;
+        float dz = (task.chunkZ + task.span * 0.5f) * chunkSize - cameraZ;
+        float distance = (float) Math.sqrt(dx * dx + dz * dz);
+        if (distance < 0.0001f) {
+            return 0.0f;
+        }
+        float facing = (dx * forwardX + dz * forwardZ) / distance;
+        return distance * (1.0f + BEHIND_PENALTY * (1.0f - facing) * 0.5f);
+    }
+
+    private long pack(int x, int z) {
+        return (((long) x) << 32) ^ (z & 0xffffffffL);
+    }
+
+    public static final class BuildTask implements Runnable {
+        private final long key;
+        private final int chunkX;
+        private final int chunkZ;
+        private final int span;
+        private final int lod;
+        private final Runnable work;
+        private final long submittedNanos;
+        private final int attempt;
+        private float priority;
+
+        private BuildTask(long key, int chunkX, int chunkZ, int span, int lod, Runnable work, long submittedNanos, int attempt) {
+            this.key = key;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.span = span;
+            this.lod = lod;
+            this.work = work;
+            this.submittedNanos = submittedNanos;
+            this.attempt = attempt;
+        }
+
+        public int getChunkX() {
+            return chunkX;
+        }
+
+        public int getChunkZ() {
+            return chunkZ;
+        }
+
+        public int getLod() {
+            return lod;
+        }
+
+        public long getSubmittedNanos() {
+            return submittedNanos;
+        }
+
+        public int getAttempt() {
+            return attempt;
+        }
+
+        @Override
+        public void run() {
+            work.run();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.terrain;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+public class ByteSizeLruCache<K, V> {
+    private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final ToLongFunction<V> weigher;
+    private final Consumer<V> evictionListener;
+    private final long maxBytes;
+    private long currentBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public ByteSizeLruCache(long maxBytes, ToLongFunction<V> weigher) {
+        this(maxBytes, weigher, value -> {
+        });
+    }
+
+    public ByteSizeLruCache(long maxBytes, ToLongFunction<V> weigher, Consumer<V> evictionListener) {
+        this.maxBytes = maxBytes;
+        this.weigher = weigher;
+        this.evictionListener = evictionListener;
+    }
+
+    public synchronized V get(K key) {
+        V value = entries.get(key);
+        if (value != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return value;
+    }
+
+    public synchronized V peek(K key) {
+        return entries.get(key);
+    }
+
+    public synchronized V take(K key) {
+        V value = entries.remove(key);
+        if (value != null) {
+            hits++;
+            currentBytes -= weigher.applyAsLong(value);
+        } else {
+            misses++;
+        }
+        return value;
+    }
+
+    public synchronized void put(K key, V value) {
+        long size = weigher.applyAsLong(value);
+        if (size > maxBytes) {
+            evictionListener.accept(value);
+            return;
+        }
+        V previous = entries.put(key, value);
+        if (previous != null) {
+            currentBytes -= weigher.applyAsLong(previous);
+            if (previous != value) {
+                evictionListener.accept(previous);
+            }
+        }
+        currentBytes += size;
+        Iterator<Map.Entry<K, V>> iterator = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<K, V> eldest = iterator.next();
+            currentBytes -= weigher.applyAsLong(eldest.getValue());
+            iterator.remove();
+            evictions++;
+            evictionListener.accept(eldest.getValue());
+        }
+    }
+
+    public synchronized boolean evictEldest() {
+        Iterator<Map.Entry<K, V>> iterator = entries.entrySet().iterator();
+        if (!iterator.hasNext()) {
+            return false;
+        }
+        V eldest = iterator.next().getValue();
+        iterator.remove();
+        currentBytes -= weigher.applyAsLong(eldest);
+        evictions++;
+        evictionListener.accept(eldest);
+        return true;
+    }
+
+    public synchronized void clear() {
+        for (V value : entries.values()) {
+            evictionListener.accept(value);
+        }
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(entries.size(), currentBytes, maxBytes, hits, misses, evictions);
+    }
+
+    public record Stats(int entries, long bytes, long maxBytes, long hits, long misses, long evictions) {
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : hits / (double) lookups;
+        }
+    }
+}
@@ -73,6 +73,10 @@ public class Camera {
         return farPlane;
     }
 
+    public void setFarPlane(float farPlane) {
+        this.farPlane = farPlane;
+    }
+
     public float getFovRadians() {
         return fovRadians;
     }
@@ -81,6 +85,10 @@ public class Camera {
         return new Vector3f(position);
     }
 
+    public Vector3f getFront() {
+        return new Vector3f(front);
+    }
+
     private void updateVectors() {
         front.set(
                 (float) (Math.cos(Math.toRadians(yaw)) * Math.cos(Math.toRadians(pitch))),
@@ -1,17 +1,19 @@
 package com.example.terrain;
 
-public class Chunk {
+public class Chunk implements TerrainPatch {
     private final int chunkX;
     private final int chunkZ;
+    private final int size;
     private ChunkMesh mesh;
     private float minY;
     private float maxY;
     private int lod;
     private int requestedLod;
 
-    public Chunk(int chunkX, int chunkZ) {
+    public Chunk(int chunkX, int chunkZ, int size) {
         this.chunkX = chunkX;
         this.chunkZ = chunkZ;
+        this.size = size;
     }
 
     public int getChunkX() {
@@ -22,26 +24,54 @@ public class Chunk {
         return chunkZ;
     }
 
+    @Override
+    public int getOriginX() {
+        return chunkX * size;
+    }
+
+    @Override
+    public int getOriginZ() {
+        return chunkZ * size;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
     public ChunkMesh getMesh() {
         return mesh;
     }
 
-    public void setMesh(ChunkMesh mesh, float minY, float maxY, int lod) {
+    public void setMesh(ChunkMesh mesh) {
+        if (this.mesh != null) {
+            this.mesh.dispose();
+        }
         this.mesh = mesh;
-        this.minY = minY;
-        this.maxY = maxY;
-        this.lod = lod;
-        this.requestedLod = lod;
+        this.minY = mesh.getMinY();
+        this.maxY = mesh.getMaxY();
+        this.lod = mesh.getLod();
+        this.requestedLod = mesh.getLod();
+    }
+
+    public ChunkMesh detachMesh() {
+        ChunkMesh detached = mesh;
+        mesh = null;
+        return detached;
     }
 
+    @Override
     public float getMinY() {
         return minY;
     }
 
+    @Override
     public float getMaxY() {
         return maxY;
     }
 
+    @Override
     public int getLod() {
         return lod;
     }
@@ -0,0 +1,381 @@
+package com.example.terrain;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+public class ChunkDiskCache {
+    private static final Logger LOGGER = Logger.getLogger(ChunkDiskCache.class.getName());
+    private static final int MAGIC = 0x54524843;
+    private static final int FORMAT_VERSION = 3;
+    private static final int REGION_SHIFT = 5;
+    private static final int REGION_SIZE = 1 << REGION_SHIFT;
+    private static final int ENTRY_COUNT = REGION_SIZE * REGION_SIZE;
+    private static final int HEADER_BYTES = 32;
+    private static final int TABLE_BYTES = ENTRY_COUNT * 2 * Integer.BYTES;
+    private static final int DATA_START = HEADER_BYTES + TABLE_BYTES;
+    private static final int ENTRY_HEADER_BYTES = 2 * Integer.BYTES;
+    private static final int VERTEX_SHORTS = 4;
+    private static final int VERTEX_BYTES = VERTEX_SHORTS * Short.BYTES + 2 * Float.BYTES;
+    private static final String LOCK_FILE = ".lock";
+    private static final Pattern DIRECTORY_NAME = Pattern.compile("(-?\\d+)-([0-9a-f]{16})-(\\d+)");
+
+    private final Path directory;
+    private final int seed;
+    private final long fingerprint;
+    private final int chunkSize;
+    private final Map<String, Region> regions = new HashMap<>();
+    private final Set<String> badRegions = new HashSet<>();
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+
+    public ChunkDiskCache(Path root, TerrainGenerator generator, int chunkSize) {
+        this.seed = generator.getSeed();
+        this.fingerprint = generator.getFingerprint();
+        this.chunkSize = chunkSize;
+        this.directory = root.resolve(String.format("%d-%016x-%d", seed, fingerprint, chunkSize));
+        try {
+            Files.createDirectories(directory);
+            lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            lock = lockShared(lockChannel);
+            purgeStaleDirectories(root);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to open chunk cache at " + directory, e);
+        }
+    }
+
+    public ChunkHeightfield load(int chunkX, int chunkZ, int lod) {
+        Region region = region(chunkX, chunkZ, lod, false);
+        if (region == null) {
+            return null;
+        }
+        try {
+            return region.read(localIndex(chunkX, chunkZ), lod);
+        } catch (IOException e) {
+            disable(region, "read", e);
+            return null;
+        }
+    }
+
+    public void store(int chunkX, int chunkZ, ChunkHeightfield heightfield) {
+        Region region = region(chunkX, chunkZ, heightfield.lod(), true);
+        if (region == null) {
+            return;
+        }
+        try {
+            region.write(localIndex(chunkX, chunkZ), encode(heightfield));
+        } catch (IOException e) {
+            disable(region, "write", e);
+        }
+    }
+
+    public void close() {
+        synchronized (regions) {
+            for (Region region : regions.values()) {
+                region.close();
+            }
+            regions.clear();
+        }
+        try {
+            if (lock != null) {
+                lock.release();
+            }
+            lockChannel.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to release chunk cache lock in " + directory, e);
+        }
+    }
+
+    private Region region(int chunkX, int chunkZ, int lod, boolean create) {
+        int regionX = chunkX >> REGION_SHIFT;
+        int regionZ = chunkZ >> REGION_SHIFT;
+        String name = "r." + lod + "." + regionX + "." + regionZ + ".bin";
+        synchronized (regions) {
+            if (badRegions.contains(name)) {
+                return null;
+            }
+            Region region = regions.get(name);
+            if (region == null) {
+                Path path = directory.resolve(name);
+                if (!create && !Files.exists(path)) {
+                    return null;
+                }
+                try {
+                    region = new Region(name, path, lod);
+                } catch (IOException e) {
+                    badRegions.add(name);
+                    LOGGER.log(Level.WARNING, "Chunk cache region " + name + " could not be opened and is disabled", e);
+                    return null;
+                }
+                regions.put(name, region);
+            }
+            return region;
+        }
+    }
+
+    private void disable(Region region, String operation, IOException error) {
+        synchronized (regions) {
+            if (!badRegions.add(region.name)) {
+                return;
+            }
+            regions.remove(region.name);
+        }
+        region.close();
+        LOGGER.log(Level.WARNING, "Chunk cache " + operation + " failed in region " + region.name + ", region disabled", error);
+    }
+
+    private int localIndex(int chunkX, int chunkZ) {
+        return (chunkZ & (REGION_SIZE - 1)) * REGION_SIZE + (chunkX & (REGION_SIZE - 1));
+    }
+
+    private ByteBuffer encode(ChunkHeightfield heightfield) {
+        int vertexCount = heightfield.heights().length;
+        ByteBuffer buffer = ByteBuffer.allocate(ENTRY_HEADER_BYTES + vertexCount * VERTEX_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(heightfield.step());
+        buffer.putInt(heightfield.vertsPerSide());
+        for (float height : heightfield.heights()) {
+            buffer.putShort(TerrainVertexFormat.encodeHeight(height));
+        }
+        for (float weight : heightfield.biomeWeights()) {
+            buffer.putShort((short) Math.round(Math.max(0.0f, Math.min(1.0f, weight)) * 65535.0f));
+        }
+        for (float slope : heightfield.slopes()) {
+            buffer.putFloat(slope);
+        }
+        return buffer.flip();
+    }
+
+    private static FileLock lockShared(FileChannel channel) throws IOException {
+        try {
+            return channel.lock(0, Long.MAX_VALUE, true);
+        } catch (OverlappingFileLockException e) {
+            return null;
+        }
+    }
+
+    private void purgeStaleDirectories(Path root) throws IOException {
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(root, seed + "-*")) {
+            for (Path entry : entries) {
+                if (Files.isDirectory(entry) && isStale(entry.getFileName().toString())) {
+                    purgeUnlocked(entry);
+                }
+            }
+        }
+    }
+
+    private boolean isStale(String name) {
+        Matcher matcher = DIRECTORY_NAME.matcher(name);
+        return matcher.matches()
+                && matcher.group(1).equals(Integer.toString(seed))
+                && matcher.group(3).equals(Integer.toString(chunkSize))
+                && !matcher.group(2).equals(String.format("%016x", fingerprint));
+    }
+
+    private void purgeUnlocked(Path stale) throws IOException {
+        Path lockPath = stale.resolve(LOCK_FILE);
+        try (FileChannel channel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            FileLock staleLock = channel.tryLock();
+            if (staleLock == null) {
+                return;
+            }
+            try {
+                deleteRecursively(stale, lockPath);
+            } finally {
+                staleLock.release();
+            }
+        } catch (OverlappingFileLockException e) {
+            return;
+        }
+        Files.deleteIfExists(lockPath);
+        Files.deleteIfExists(stale);
+    }
+
+    private void deleteRecursively(Path path, Path keep) throws IOException {
+        try (Stream<Path> walk = Files.walk(path)) {
+            for (Path entry : (Iterable<Path>) walk.sorted(Comparator.reverseOrder())::iterator) {
+                if (!entry.equals(keep) && !entry.equals(path)) {
+                    Files.deleteIfExists(entry);
+                }
+            }
+        }
+    }
+
+    private final class Region {
+        private final String name;
+        private final FileChannel channel;
+        private final int[] offsets = new int[ENTRY_COUNT];
+        private final int[] lengths = new int[ENTRY_COUNT];
+        private MappedByteBuffer mapped;
+
+        private Region(String name, Path path, int lod) throws IOException {
+            this.name = name;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (!readHeader(lod)) {
+                channel.truncate(0);
+                ByteBuffer header = ByteBuffer.allocate(DATA_START).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(seed).putLong(fingerprint).putInt(chunkSize).putInt(lod);
+                header.clear();
+                writeFully(header, 0);
+            } else {
+                compact();
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        private boolean readHeader(int lod) throws IOException {
+            if (channel.size() < DATA_START) {
+                return false;
+            }
+            ByteBuffer header = ByteBuffer.allocate(DATA_START).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    return false;
+                }
+            }
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION
+                    || header.getInt() != seed || header.getLong() != fingerprint || header.getInt() != chunkSize
+                    || header.getInt() != lod) {
+                return false;
+            }
+            header.position(HEADER_BYTES);
+            long size = channel.size();
+            for (int i = 0; i < ENTRY_COUNT; i++) {
+                int offset = header.getInt();
+                int length = header.getInt();
+                if (offset >= DATA_START && (long) offset + length <= size) {
+                    offsets[i] = offset;
+                    lengths[i] = length;
+                }
+            }
+            return true;
+        }
+
+        private void compact() throws IOException {
+            long live = 0;
+            Integer[] order = new Integer[ENTRY_COUNT];
+            for (int i = 0; i < ENTRY_COUNT; i++) {
+                order[i] = i;
+                live += lengths[i];
+            }
+            if (DATA_START + live >= channel.size()) {
+                return;
+            }
+            Arrays.sort(order, Comparator.comparingInt(i -> offsets[i]));
+            int cursor = DATA_START;
+            for (int index : order) {
+                int offset = offsets[index];
+                int length = lengths[index];
+                if (offset == 0) {
+                    continue;
+                }
+                if (offset != cursor) {
+                    ByteBuffer entry = ByteBuffer.allocate(length);
+                    readFully(entry, offset);
+                    writeFully(entry.flip(), cursor);
+                    updateTable(index, cursor, length);
+                }
+                cursor += length;
+            }
+            channel.truncate(cursor);
+        }
+
+        private synchronized ChunkHeightfield read(int index, int lod) throws IOException {
+            int offset = offsets[index];
+            int length = lengths[index];
+            if (offset == 0) {
+                return null;
+            }
+            if ((long) offset + length > mapped.capacity()) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            ByteBuffer entry = mapped.slice(offset, length).order(ByteOrder.LITTLE_ENDIAN);
+            int step = entry.getInt();
+            int vertsPerSide = entry.getInt();
+            int vertexCount = vertsPerSide * vertsPerSide;
+            if (vertsPerSide <= 0 || length != ENTRY_HEADER_BYTES + vertexCount * VERTEX_BYTES) {
+                return null;
+            }
+            int shortCount = vertexCount * VERTEX_SHORTS;
+            ShortBuffer packed = entry.slice(ENTRY_HEADER_BYTES, shortCount * Short.BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                    .asShortBuffer();
+            short[] encoded = ScratchArrays.shorts(ScratchArrays.Slot.CACHE_ENTRY, shortCount);
+            packed.get(encoded, 0, shortCount);
+            float[] heights = new float[vertexCount];
+            for (int i = 0; i < vertexCount; i++) {
+                heights[i] = TerrainVertexFormat.decodeHeight(encoded[i]);
+            }
+            float[] biomeWeights = new float[vertexCount * 3];
+            for (int i = 0; i < biomeWeights.length; i++) {
+                biomeWeights[i] = (encoded[vertexCount + i] & 0xffff) / 65535.0f;
+            }
+            float[] slopes = new float[vertexCount * 2];
+            entry.slice(ENTRY_HEADER_BYTES + shortCount * Short.BYTES, slopes.length * Float.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(slopes);
+            return new ChunkHeightfield(lod, step, vertsPerSide, heights, biomeWeights, slopes);
+        }
+
+        private synchronized void write(int index, ByteBuffer data) throws IOException {
+            int length = data.remaining();
+            int offset = offsets[index] != 0 && lengths[index] >= length
+                    ? offsets[index]
+                    : (int) Math.max(channel.size(), DATA_START);
+            writeFully(data, offset);
+            updateTable(index, offset, length);
+        }
+
+        private void updateTable(int index, int offset, int length) throws IOException {
+            ByteBuffer entry = ByteBuffer.allocate(2 * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            entry.putInt(offset).putInt(length).flip();
+            writeFully(entry, HEADER_BYTES + (long) index * 2 * Integer.BYTES);
+            offsets[index] = offset;
+            lengths[index] = length;
+        }
+
+        private void readFully(ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new IOException("Unexpected end of chunk cache region " + name);
+                }
+                position += read;
+            }
+        }
+
+        private void writeFully(ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        }
+
+        private synchronized void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to close chunk cache region " + name, e);
+            }
+        }
+    }
+}
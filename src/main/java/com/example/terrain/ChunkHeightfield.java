@@ -0,0 +1,29 @@
+package com.example.terrain;
+
+public record ChunkHeightfield(int lod, int step, int vertsPerSide, float[] heights, float[] biomeWeights, float[] slopes) {
+    public float sampleHeight(float localX, float localZ) {
+        float gridX = clamp(localX / step);
+        float gridZ = clamp(localZ / step);
+        int x0 = Math.min((int) gridX, vertsPerSide - 2);
+        int z0 = Math.min((int) gridZ, vertsPerSide - 2);
+        float fx = gridX - x0;
+        float fz = gridZ - z0;
+        int row0 = z0 * vertsPerSide + x0;
+        int row1 = row0 + vertsPerSide;
+        float top = heights[row0] + (heights[row0 + 1] - heights[row0]) * fx;
+        float bottom = heights[row1] + (heights[row1 + 1] - heights[row1]) * fx;
+        return top + (bottom - top) * fz;
+    }
+
+    public boolean isHeightsOnly() {
+        return slopes.length == 0;
+    }
+
+    public long byteSize() {
+        return (long) (heights.length + biomeWeights.length + slopes.length) * Float.BYTES;
+    }
+
+    private float clamp(float grid) {
+        return Math.max(0.0f, Math.min(grid, vertsPerSide - 1));
+    }
+}
@@ -2,104 +2,284 @@ package com.example.terrain;
 
 import org.joml.Vector3f;
 
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
-public class ChunkManager {
-    private final Map<Long, Chunk> chunks = new ConcurrentHashMap<>();
-    private final ConcurrentLinkedQueue<ChunkUploadCommand> uploadQueue = new ConcurrentLinkedQueue<>();
-    private final ExecutorService executor;
+import java.util.Arrays;
+
+public class ChunkManager implements TerrainSource {
+    private static final int[] LOD_BANDS = {2, 4, 8, 16};
+
+    private final LongObjectMap<Chunk> chunks;
+    private final TerrainMeshStore<MeshKey> meshStore;
+    private final BuildScheduler scheduler;
     private final ChunkMeshBuilder meshBuilder;
+    private final ChunkDiskCache diskCache;
+    private final HeightTileCache heightTiles;
     private final int chunkSize;
     private final int renderDistance;
-    private final int lodSwitchDistance = 2;
+    private final LodSelector lodSelector;
+    private final ChunkWindow window;
+    private final ChunkWindow.CellVisitor enterCell = this::enterCell;
+    private final ChunkWindow.CellVisitor leaveCell = this::leaveCell;
+    private final ChunkWindow.CellVisitor refreshLod = this::refreshLod;
+    private final TerrainMeshStore.MeshTarget meshTarget = new TerrainMeshStore.MeshTarget() {
+        @Override
+        public boolean accepts(long key, ChunkMeshData data) {
+            Chunk chunk = chunks.get(key);
+            return chunk != null && chunk.getRequestedLod() == data.lod();
+        }
+
+        @Override
+        public void install(long key, ChunkMesh mesh) {
+            Chunk chunk = chunks.get(key);
+            retainMesh(chunk);
+            chunk.setMesh(mesh);
+            markNeighbourhood(chunk.getChunkX(), chunk.getChunkZ());
+        }
+    };
+    private float viewCenterX;
+    private float viewCenterZ;
+    private long[] restitch = new long[64];
+    private int restitchCount;
 
-    public ChunkManager(TerrainGenerator generator, int chunkSize, int renderDistance) {
+    public ChunkManager(TerrainGenerator generator, int chunkSize, int renderDistance, GenerationExecutor executor,
+                        UploadBudget uploadBudget, ChunkDiskCache diskCache, HeightTileCache heightTiles) {
         this.chunkSize = chunkSize;
+        this.diskCache = diskCache;
+        this.heightTiles = heightTiles;
         this.renderDistance = renderDistance;
-        this.meshBuilder = new ChunkMeshBuilder(generator, chunkSize);
-        int threadCount = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
-        this.executor = Executors.newFixedThreadPool(threadCount);
+        this.lodSelector = new LodSelector(chunkSize, LOD_BANDS);
+        int[] vertsPerSide = new int[lodSelector.getLevelCount()];
+        for (int lod = 0; lod < vertsPerSide.length; lod++) {
+            vertsPerSide[lod] = lodSelector.vertsPerSide(lod);
+        }
+        long residentBytes = lodSelector.residentVertexCount(renderDistance) * TerrainVertexFormat.STRIDE;
+        this.meshStore = new TerrainMeshStore<>("terrain", executor, uploadBudget, chunkSize, residentBytes, meshTarget,
+                vertsPerSide);
+        this.scheduler = meshStore.getScheduler();
+        this.window = new ChunkWindow(renderDistance);
+        this.chunks = new LongObjectMap<>((2 * renderDistance + 1) * (2 * renderDistance + 1));
+        this.meshBuilder = new ChunkMeshBuilder(generator, chunkSize, meshStore.getUploadRing());
     }
 
-    public void update(Vector3f cameraPosition) {
+    @Override
+    public void update(Vector3f cameraPosition, Vector3f cameraForward) {
+        scheduler.updateView(cameraPosition.x, cameraPosition.z, cameraForward.x, cameraForward.z);
+        viewCenterX = cameraPosition.x;
+        viewCenterZ = cameraPosition.z;
         int cameraChunkX = (int) Math.floor(cameraPosition.x / chunkSize);
         int cameraChunkZ = (int) Math.floor(cameraPosition.z / chunkSize);
 
-        Set<Long> needed = new HashSet<>();
-        for (int dz = -renderDistance; dz <= renderDistance; dz++) {
-            for (int dx = -renderDistance; dx <= renderDistance; dx++) {
-                int chunkX = cameraChunkX + dx;
-                int chunkZ = cameraChunkZ + dz;
-                long key = pack(chunkX, chunkZ);
-                needed.add(key);
-                int lod = selectLod(dx, dz);
-                if (!chunks.containsKey(key)) {
-                    Chunk chunk = new Chunk(chunkX, chunkZ);
-                    chunk.setRequestedLod(lod);
-                    chunks.put(key, chunk);
-                    submitBuild(chunkX, chunkZ, lod);
-                } else {
-                    Chunk chunk = chunks.get(key);
-                    if (chunk != null && chunk.getRequestedLod() != lod) {
-                        chunk.setRequestedLod(lod);
-                        submitBuild(chunkX, chunkZ, lod);
-                    }
-                }
-            }
+        boolean placed = window.isPlaced();
+        int shift = Math.max(Math.abs(cameraChunkX - window.getCenterX()), Math.abs(cameraChunkZ - window.getCenterZ()));
+        if (window.moveTo(cameraChunkX, cameraChunkZ, leaveCell, enterCell) && placed) {
+            refreshLodBands(shift);
         }
 
-        chunks.entrySet().removeIf(entry -> {
-            if (!needed.contains(entry.getKey())) {
-                entry.getValue().dispose();
-                return true;
-            }
-            return false;
-        });
-
-        ChunkUploadCommand command;
-        while ((command = uploadQueue.poll()) != null) {
-            Chunk chunk = chunks.get(pack(command.chunkX(), command.chunkZ()));
-            if (chunk != null) {
-                ChunkMesh mesh = ChunkMesh.upload(command.meshData());
-                chunk.setMesh(mesh, command.meshData().minY(), command.meshData().maxY(), command.meshData().lod());
-            }
-        }
+        meshStore.drain(cameraChunkX, cameraChunkZ);
+        updateStitching();
     }
 
     public Iterable<Chunk> getChunks() {
         return chunks.values();
     }
 
+    @Override
+    public int getPatchCount() {
+        return chunks.size();
+    }
+
+    @Override
+    public TerrainPatch getPatch(int index) {
+        return chunks.valueAt(index);
+    }
+
+    @Override
+    public float getViewRange() {
+        return renderDistance * chunkSize;
+    }
+
+    @Override
+    public TerrainVertexArena getVertexArena() {
+        return meshStore.getArena();
+    }
+
+    public LodSelector getLodSelector() {
+        return lodSelector;
+    }
+
+    @Override
+    public float getViewCenterX() {
+        return viewCenterX;
+    }
+
+    @Override
+    public float getViewCenterZ() {
+        return viewCenterZ;
+    }
+
+    @Override
+    public float getMorphStart(int lod) {
+        return lodSelector.morphStart(lod);
+    }
+
+    @Override
+    public float getMorphEnd(int lod) {
+        return lodSelector.morphEnd(lod);
+    }
+
+    @Override
+    public ByteSizeLruCache.Stats getMeshCacheStats() {
+        return meshStore.getCacheStats();
+    }
+
+    @Override
     public void shutdown() {
-        executor.shutdownNow();
+        meshStore.clear();
         for (Chunk chunk : chunks.values()) {
             chunk.dispose();
         }
         chunks.clear();
+        restitchCount = 0;
+        window.reset();
+        meshStore.dispose();
+    }
+
+    private void enterCell(int chunkX, int chunkZ) {
+        long key = pack(chunkX, chunkZ);
+        if (chunks.containsKey(key)) {
+            return;
+        }
+        int lod = lodFor(chunkX, chunkZ);
+        Chunk chunk = new Chunk(chunkX, chunkZ, chunkSize);
+        chunk.setRequestedLod(lod);
+        chunks.put(key, chunk);
+        requestMesh(chunkX, chunkZ, lod);
+    }
+
+    private void leaveCell(int chunkX, int chunkZ) {
+        Chunk chunk = chunks.remove(pack(chunkX, chunkZ));
+        if (chunk == null) {
+            return;
+        }
+        scheduler.cancel(chunkX, chunkZ);
+        if (chunk.getMesh() != null) {
+            markNeighbourhood(chunkX, chunkZ);
+        }
+        retainMesh(chunk);
+        chunk.dispose();
+    }
+
+    private void refreshLodBands(int shift) {
+        if (shift >= renderDistance) {
+            window.forEachCell(refreshLod);
+            return;
+        }
+        for (int level = 0; level < lodSelector.getLevelCount() - 1; level++) {
+            int band = lodSelector.getBand(level);
+            for (int distance = band - shift + 1; distance <= band + shift; distance++) {
+                window.forEachRing(distance, refreshLod);
+            }
+        }
+    }
+
+    private void refreshLod(int chunkX, int chunkZ) {
+        Chunk chunk = chunks.get(pack(chunkX, chunkZ));
+        int lod = lodFor(chunkX, chunkZ);
+        if (chunk == null || chunk.getRequestedLod() == lod) {
+            return;
+        }
+        chunk.setRequestedLod(lod);
+        if (chunk.getMesh() != null && chunk.getLod() == lod) {
+            scheduler.cancel(chunkX, chunkZ);
+        } else {
+            requestMesh(chunkX, chunkZ, lod);
+        }
+    }
+
+    private int lodFor(int chunkX, int chunkZ) {
+        return lodSelector.selectLod(chunkX - window.getCenterX(), chunkZ - window.getCenterZ());
+    }
+
+    private void requestMesh(int chunkX, int chunkZ, int lod) {
+        ChunkMesh cached = meshStore.takeCached(new MeshKey(chunkX, chunkZ, lod));
+        if (cached != null) {
+            scheduler.cancel(chunkX, chunkZ);
+            Chunk chunk = chunks.get(pack(chunkX, chunkZ));
+            retainMesh(chunk);
+            chunk.setMesh(cached);
+            markNeighbourhood(chunkX, chunkZ);
+        } else {
+            submitBuild(chunkX, chunkZ, lod);
+        }
+    }
+
+    private void retainMesh(Chunk chunk) {
+        ChunkMesh mesh = chunk.detachMesh();
+        if (mesh != null) {
+            meshStore.retain(new MeshKey(chunk.getChunkX(), chunk.getChunkZ(), mesh.getLod()), mesh);
+        }
     }
 
     private void submitBuild(int chunkX, int chunkZ, int lod) {
-        executor.submit(() -> {
-            ChunkMeshData data = meshBuilder.build(chunkX, chunkZ, lod);
-            uploadQueue.add(new ChunkUploadCommand(chunkX, chunkZ, data));
+        scheduler.submit(chunkX, chunkZ, lod, () -> {
+            ChunkMeshData data = meshBuilder.build(chunkX, chunkZ, loadHeightfield(chunkX, chunkZ, lod));
+            meshStore.offer(chunkX, chunkZ, pack(chunkX, chunkZ), data);
         });
     }
 
-    private long pack(int x, int z) {
-        return (((long) x) << 32) ^ (z & 0xffffffffL);
+    private ChunkHeightfield loadHeightfield(int chunkX, int chunkZ, int lod) {
+        if (lod == 0) {
+            ChunkHeightfield tile = heightTiles.peek(chunkX, chunkZ);
+            if (tile != null && !tile.isHeightsOnly()) {
+                return tile;
+            }
+        }
+        ChunkHeightfield heightfield = diskCache != null ? diskCache.load(chunkX, chunkZ, lod) : null;
+        if (heightfield == null) {
+            heightfield = meshBuilder.sampleHeightfield(chunkX, chunkZ, lod);
+            if (diskCache != null) {
+                diskCache.store(chunkX, chunkZ, heightfield);
+            }
+        }
+        heightTiles.put(chunkX, chunkZ, heightfield);
+        return heightfield;
+    }
+
+
+    private void markNeighbourhood(int chunkX, int chunkZ) {
+        if (restitchCount + 5 > restitch.length) {
+            restitch = Arrays.copyOf(restitch, restitch.length * 2);
+        }
+        restitch[restitchCount++] = pack(chunkX, chunkZ);
+        restitch[restitchCount++] = pack(chunkX - 1, chunkZ);
+        restitch[restitchCount++] = pack(chunkX + 1, chunkZ);
+        restitch[restitchCount++] = pack(chunkX, chunkZ - 1);
+        restitch[restitchCount++] = pack(chunkX, chunkZ + 1);
+    }
+
+    private void updateStitching() {
+        for (int i = 0; i < restitchCount; i++) {
+            Chunk chunk = chunks.get(restitch[i]);
+            ChunkMesh mesh = chunk != null ? chunk.getMesh() : null;
+            if (mesh == null) {
+                continue;
+            }
+            int x = chunk.getChunkX();
+            int z = chunk.getChunkZ();
+            TerrainMeshStore.stitch(mesh, chunk.getLod(), displayedLod(x - 1, z), displayedLod(x + 1, z), displayedLod(x, z - 1),
+                    displayedLod(x, z + 1));
+        }
+        restitchCount = 0;
     }
 
-    private int selectLod(int dx, int dz) {
-        int distance = Math.max(Math.abs(dx), Math.abs(dz));
-        return distance > lodSwitchDistance ? 1 : 0;
+    private int displayedLod(int chunkX, int chunkZ) {
+        Chunk neighbour = chunks.get(pack(chunkX, chunkZ));
+        return neighbour != null && neighbour.getMesh() != null ? neighbour.getLod() : -1;
+    }
+
+    private long pack(int x, int z) {
+        return (((long) x) << 32) ^ (z & 0xffffffffL);
     }
 
-    public record ChunkUploadCommand(int chunkX, int chunkZ, ChunkMeshData meshData) {
+    private record MeshKey(int chunkX, int chunkZ, int lod) {
     }
 }
@@ -1,69 +1,74 @@
 package com.example.terrain;
 
-import org.lwjgl.system.MemoryUtil;
-
-import java.nio.FloatBuffer;
-import java.nio.IntBuffer;
+public class ChunkMesh {
+    private final TerrainVertexArena arena;
+    private final int baseVertex;
+    private final int vertsPerSide;
+    private final float minY;
+    private final float maxY;
+    private final int lod;
+    private final long byteSize;
+    private final IndexBufferRegistry.PatchIndices indices;
+    private final int[] edgeCollapse = new int[IndexBufferRegistry.EDGE_COUNT];
 
-import static org.lwjgl.opengl.GL46.*;
+    private ChunkMesh(TerrainVertexArena arena, int baseVertex, ChunkMeshData data, IndexBufferRegistry.PatchIndices indices) {
+        this.arena = arena;
+        this.baseVertex = baseVertex;
+        this.vertsPerSide = data.vertsPerSide();
+        this.minY = data.minY();
+        this.maxY = data.maxY();
+        this.lod = data.lod();
+        this.byteSize = (long) data.vertexCount() * TerrainVertexFormat.STRIDE;
+        this.indices = indices;
+    }
 
-public class ChunkMesh {
-    private final int vaoId;
-    private final int vboId;
-    private final int eboId;
-    private final int indexCount;
+    public static ChunkMesh upload(ChunkMeshData data, IndexBufferRegistry.PatchIndices indices, TerrainVertexArena arena,
+                                   UploadRing ring) {
+        int baseVertex = arena.allocate(data.vertexCount());
+        if (baseVertex < 0) {
+            return null;
+        }
+        ring.upload(data.vertices(), arena.getBufferId(), (long) baseVertex * TerrainVertexFormat.STRIDE);
+        return new ChunkMesh(arena, baseVertex, data, indices);
+    }
 
-    private ChunkMesh(int vaoId, int vboId, int eboId, int indexCount) {
-        this.vaoId = vaoId;
-        this.vboId = vboId;
-        this.eboId = eboId;
-        this.indexCount = indexCount;
+    public int getVertsPerSide() {
+        return vertsPerSide;
     }
 
-    public static ChunkMesh upload(ChunkMeshData data) {
-        int vao = glGenVertexArrays();
-        int vbo = glGenBuffers();
-        int ebo = glGenBuffers();
+    public float getMinY() {
+        return minY;
+    }
 
-        glBindVertexArray(vao);
+    public float getMaxY() {
+        return maxY;
+    }
 
-        FloatBuffer vertexBuffer = MemoryUtil.memAllocFloat(data.vertices().length);
-        vertexBuffer.put(data.vertices()).flip();
-        glBindBuffer(GL_ARRAY_BUFFER, vbo);
-        glBufferData(GL_ARRAY_BUFFER, vertexBuffer, GL_STATIC_DRAW);
-        MemoryUtil.memFree(vertexBuffer);
+    public int getLod() {
+        return lod;
+    }
 
-        IntBuffer indexBuffer = MemoryUtil.memAllocInt(data.indices().length);
-        indexBuffer.put(data.indices()).flip();
-        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, ebo);
-        glBufferData(GL_ELEMENT_ARRAY_BUFFER, indexBuffer, GL_STATIC_DRAW);
-        MemoryUtil.memFree(indexBuffer);
+    public long getByteSize() {
+        return byteSize;
+    }
 
-        int stride = 11 * Float.BYTES;
-        glEnableVertexAttribArray(0);
-        glVertexAttribPointer(0, 3, GL_FLOAT, false, stride, 0);
-        glEnableVertexAttribArray(1);
-        glVertexAttribPointer(1, 3, GL_FLOAT, false, stride, 3L * Float.BYTES);
-        glEnableVertexAttribArray(2);
-        glVertexAttribPointer(2, 2, GL_FLOAT, false, stride, 6L * Float.BYTES);
-        glEnableVertexAttribArray(3);
-        glVertexAttribPointer(3, 3, GL_FLOAT, false, stride, 8L * Float.BYTES);
+    public int getBaseVertex() {
+        return baseVertex;
+    }
 
-        glBindVertexArray(0);
-        glBindBuffer(GL_ARRAY_BUFFER, 0);
+    public IndexBufferRegistry.PatchIndices getIndices() {
+        return indices;
+    }
 
-        return new ChunkMesh(vao, vbo, ebo, data.indices().length);
+    public int getEdgeCollapse(int edge) {
+        return edgeCollapse[edge];
     }
 
-    public void draw() {
-        glBindVertexArray(vaoId);
-        glDrawElements(GL_TRIANGLES, indexCount, GL_UNSIGNED_INT, 0);
-        glBindVertexArray(0);
+    public void setEdgeCollapse(int edge, int collapse) {
+        edgeCollapse[edge] = collapse;
     }
 
     public void dispose() {
-        glDeleteBuffers(vboId);
-        glDeleteBuffers(eboId);
-        glDeleteVertexArrays(vaoId);
+        arena.free(baseVertex);
     }
 }
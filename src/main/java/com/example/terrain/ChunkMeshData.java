@@ -1,4 +1,13 @@
 package com.example.terrain;
 
-public record ChunkMeshData(float[] vertices, int[] indices, float minY, float maxY, int lod) {
+import java.nio.ByteBuffer;
+
+public record ChunkMeshData(ByteBuffer vertices, int vertsPerSide, float minY, float maxY, int lod) {
+    public int vertexCount() {
+        return vertsPerSide * vertsPerSide;
+    }
+
+    public long byteSize() {
+        return vertices.capacity();
+    }
 }
@@ -0,0 +1,104 @@
+package com.example.terrain;
+
+final class ChunkWindow {
+    private final int radius;
+    private int centerX;
+    private int centerZ;
+    private boolean placed;
+
+    ChunkWindow(int radius) {
+        this.radius = radius;
+    }
+
+    int getRadius() {
+        return radius;
+    }
+
+    int getCenterX() {
+        return centerX;
+    }
+
+    int getCenterZ() {
+        return centerZ;
+    }
+
+    boolean isPlaced() {
+        return placed;
+    }
+
+    boolean moveTo(int x, int z, CellVisitor leaving, CellVisitor entering) {
+        if (placed && x == centerX && z == centerZ) {
+            return false;
+        }
+        int previousX = centerX;
+        int previousZ = centerZ;
+        boolean wasPlaced = placed;
+        centerX = x;
+        centerZ = z;
+        placed = true;
+        if (wasPlaced) {
+            forEachOutside(previousX, previousZ, x, z, leaving);
+            forEachOutside(x, z, previousX, previousZ, entering);
+        } else {
+            forEachInside(x, z, entering);
+        }
+        return true;
+    }
+
+    void forEachRing(int distance, CellVisitor visitor) {
+        if (distance < 0 || distance > radius) {
+            return;
+        }
+        if (distance == 0) {
+            visitor.visit(centerX, centerZ);
+            return;
+        }
+        for (int x = centerX - distance; x <= centerX + distance; x++) {
+            visitor.visit(x, centerZ - distance);
+            visitor.visit(x, centerZ + distance);
+        }
+        for (int z = centerZ - distance + 1; z <= centerZ + distance - 1; z++) {
+            visitor.visit(centerX - distance, z);
+            visitor.visit(centerX + distance, z);
+        }
+    }
+
+    void forEachCell(CellVisitor visitor) {
+        if (placed) {
+            forEachInside(centerX, centerZ, visitor);
+        }
+    }
+
+    void reset() {
+        placed = false;
+    }
+
+    private void forEachInside(int x, int z, CellVisitor visitor) {
+        for (int cz = z - radius; cz <= z + radius; cz++) {
+            for (int cx = x - radius; cx <= x + radius; cx++) {
+                visitor.visit(cx, cz);
+            }
+        }
+    }
+
+    private void forEachOutside(int x, int z, int otherX, int otherZ, CellVisitor visitor) {
+        for (int cz = z - radius; cz <= z + radius; cz++) {
+            if (Math.abs(cz - otherZ) > radius) {
+                for (int cx = x - radius; cx <= x + radius; cx++) {
+                    visitor.visit(cx, cz);
+                }
+                continue;
+            }
+            for (int cx = x - radius; cx <= Math.min(x + radius, otherX - radius - 1); cx++) {
+                visitor.visit(cx, cz);
+            }
+            for (int cx = Math.max(x - radius, otherX + radius + 1); cx <= x + radius; cx++) {
+                visitor.visit(cx, cz);
+            }
+        }
+    }
+
+    interface CellVisitor {
+        void visit(int chunkX, int chunkZ);
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.terrain;
+
+interface FbmRowKernel {
+    void fbmRow(int seed, float[] xs, int count, float z, int octaves, float lacunarity, float gain, float[] out);
+
+    void fbmRowDerivatives(int seed, float[] xs, int count, float z, int octaves, float lacunarity, float gain, float[] out,
+                           float[] outDx, float[] outDz);
+}
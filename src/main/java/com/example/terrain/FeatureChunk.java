@@ -3,8 +3,11 @@ package com.example.terrain;
 public class FeatureChunk {
     private final int chunkX;
     private final int chunkZ;
-    private FeatureMesh nearMesh;
-    private FeatureMesh farMesh;
+    private FeatureInstanceBuffer nearInstances;
+    private FeatureInstanceBuffer farInstances;
+    private FeatureInstanceData nearData;
+    private FeatureInstanceData farData;
+    private boolean near;
 
     public FeatureChunk(int chunkX, int chunkZ) {
         this.chunkX = chunkX;
@@ -19,25 +22,69 @@ public class FeatureChunk {
         return chunkZ;
     }
 
-    public FeatureMesh getNearMesh() {
-        return nearMesh;
+    public boolean isNear() {
+        return near;
     }
 
-    public FeatureMesh getFarMesh() {
-        return farMesh;
+    public void setNear(boolean near) {
+        this.near = near;
     }
 
-    public void setMeshes(FeatureMesh nearMesh, FeatureMesh farMesh) {
-        this.nearMesh = nearMesh;
-        this.farMesh = farMesh;
+    public FeatureInstanceBuffer getInstances() {
+        if (near) {
+            return nearInstances != null ? nearInstances : farInstances;
+        }
+        return farInstances != null ? farInstances : nearInstances;
     }
 
-    public void dispose() {
-        if (nearMesh != null) {
-            nearMesh.dispose();
+    public FeatureInstanceBuffer getNearInstances() {
+        return nearInstances;
+    }
+
+    public FeatureInstanceBuffer getFarInstances() {
+        return farInstances;
+    }
+
+    public void setNearInstances(FeatureInstanceBuffer nearInstances) {
+        releaseNearInstances();
+        this.nearInstances = nearInstances;
+    }
+
+    public void setFarInstances(FeatureInstanceBuffer farInstances) {
+        releaseFarInstances();
+        this.farInstances = farInstances;
+    }
+
+    public void releaseNearInstances() {
+        if (nearInstances != null) {
+            nearInstances.dispose();
+            nearInstances = null;
         }
-        if (farMesh != null) {
-            farMesh.dispose();
+    }
+
+    public void releaseFarInstances() {
+        if (farInstances != null) {
+            farInstances.dispose();
+            farInstances = null;
         }
     }
+
+    public FeatureInstanceData getNearData() {
+        return nearData;
+    }
+
+    public FeatureInstanceData getFarData() {
+        return farData;
+    }
+
+    public void setData(FeatureInstanceData nearData, FeatureInstanceData farData) {
+        dispose();
+        this.nearData = nearData;
+        this.farData = farData;
+    }
+
+    public void dispose() {
+        releaseNearInstances();
+        releaseFarInstances();
+    }
 }
@@ -0,0 +1,50 @@
+package com.example.terrain;
+
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+
+import static org.lwjgl.opengl.GL46.*;
+
+public class FeatureInstanceBuffer {
+    private final int bufferId;
+    private final int[] counts;
+    private final int instanceCount;
+
+    private FeatureInstanceBuffer(int bufferId, int[] counts, int instanceCount) {
+        this.bufferId = bufferId;
+        this.counts = counts;
+        this.instanceCount = instanceCount;
+    }
+
+    public static FeatureInstanceBuffer upload(FeatureInstanceData data) {
+        int instanceCount = data.totalCount();
+        if (instanceCount == 0) {
+            return new FeatureInstanceBuffer(0, data.counts(), 0);
+        }
+        ByteBuffer buffer = MemoryUtil.memAlloc(data.instances().remaining());
+        buffer.put(data.instances().duplicate()).flip();
+        int vbo = glCreateBuffers();
+        glNamedBufferStorage(vbo, buffer, 0);
+        MemoryUtil.memFree(buffer);
+        return new FeatureInstanceBuffer(vbo, data.counts(), instanceCount);
+    }
+
+    public int getBufferId() {
+        return bufferId;
+    }
+
+    public int getCount(FeaturePrototype prototype) {
+        return counts[prototype.ordinal()];
+    }
+
+    public int getInstanceCount() {
+        return instanceCount;
+    }
+
+    public void dispose() {
+        if (bufferId != 0) {
+            glDeleteBuffers(bufferId);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.terrain;
+
+import java.nio.ByteBuffer;
+
+public record FeatureInstanceData(ByteBuffer instances, int[] counts) {
+    public int count(FeaturePrototype prototype) {
+        return counts[prototype.ordinal()];
+    }
+
+    public int totalCount() {
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    public long byteSize() {
+        return instances.capacity() + (long) counts.length * Integer.BYTES;
+    }
+}
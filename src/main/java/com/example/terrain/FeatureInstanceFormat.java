@@ -0,0 +1,44 @@
+package com.example.terrain;
+
+import java.nio.ByteBuffer;
+
+public final class FeatureInstanceFormat {
+    public static final int STRIDE = 24;
+    public static final int POSITION_OFFSET = 0;
+    public static final int SCALE_OFFSET = 12;
+    public static final int ROTATION_OFFSET = 16;
+    public static final int COLOR_OFFSET = 20;
+    private static final float TWO_PI = (float) (Math.PI * 2.0);
+
+    private FeatureInstanceFormat() {
+    }
+
+    public static void put(ByteBuffer buffer, float x, float y, float z, float scaleXZ, float scaleY, float rotation,
+                           float[] color) {
+        buffer.putFloat(x);
+        buffer.putFloat(y);
+        buffer.putFloat(z);
+        buffer.putShort(Float.floatToFloat16(scaleXZ));
+        buffer.putShort(Float.floatToFloat16(scaleY));
+        buffer.putShort(encodeRotation(rotation));
+        buffer.putShort((short) 0);
+        buffer.put(encodeUnorm8(color[0]));
+        buffer.put(encodeUnorm8(color[1]));
+        buffer.put(encodeUnorm8(color[2]));
+        buffer.put((byte) 0xff);
+    }
+
+    public static short encodeRotation(float radians) {
+        float turns = radians / TWO_PI;
+        turns -= (float) Math.floor(turns);
+        return (short) Math.min(65535, Math.round(turns * 65536.0f));
+    }
+
+    public static float decodeRotation(short encoded) {
+        return (encoded & 0xffff) / 65536.0f * TWO_PI;
+    }
+
+    private static byte encodeUnorm8(float value) {
+        return (byte) Math.round(Math.max(0.0f, Math.min(1.0f, value)) * 255.0f);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.terrain;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public class FeatureInstanceWriter {
+    private static final int INITIAL_INSTANCES = 16;
+    private static final FeaturePrototype[] PROTOTYPES = FeaturePrototype.values();
+
+    private final ByteBuffer[] buffers = new ByteBuffer[PROTOTYPES.length];
+
+    public void reserve(FeaturePrototype prototype, int instances) {
+        ByteBuffer buffer = buffers[prototype.ordinal()];
+        int needed = instances * FeatureInstanceFormat.STRIDE;
+        if (buffer == null) {
+            buffers[prototype.ordinal()] = ByteBuffer.allocate(needed).order(ByteOrder.nativeOrder());
+        } else if (buffer.remaining() < needed) {
+            buffers[prototype.ordinal()] = grow(buffer, buffer.position() + needed);
+        }
+    }
+
+    public void add(FeaturePrototype prototype, float x, float y, float z, float scaleXZ, float scaleY, float rotation,
+                    float[] color) {
+        int slot = prototype.ordinal();
+        ByteBuffer buffer = buffers[slot];
+        if (buffer == null) {
+            buffer = ByteBuffer.allocate(INITIAL_INSTANCES * FeatureInstanceFormat.STRIDE).order(ByteOrder.nativeOrder());
+            buffers[slot] = buffer;
+        } else if (buffer.remaining() < FeatureInstanceFormat.STRIDE) {
+            buffer = grow(buffer, buffer.capacity() * 2);
+            buffers[slot] = buffer;
+        }
+        FeatureInstanceFormat.put(buffer, x, y, z, scaleXZ, scaleY, rotation, color);
+    }
+
+    public FeatureInstanceData toInstanceData() {
+        int[] counts = new int[PROTOTYPES.length];
+        int bytes = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            if (buffers[i] != null) {
+                counts[i] = buffers[i].position() / FeatureInstanceFormat.STRIDE;
+                bytes += buffers[i].position();
+            }
+        }
+        ByteBuffer instances = ByteBuffer.allocate(bytes).order(ByteOrder.nativeOrder());
+        for (ByteBuffer buffer : buffers) {
+            if (buffer != null) {
+                instances.put(buffer.duplicate().flip());
+            }
+        }
+        instances.flip();
+        return new FeatureInstanceData(instances, counts);
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, int capacity) {
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(capacity, INITIAL_INSTANCES * FeatureInstanceFormat.STRIDE))
+                .order(ByteOrder.nativeOrder());
+        grown.put(buffer.flip());
+        return grown;
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.terrain;
+
+public record FeatureLodData(FeatureInstanceData near, FeatureInstanceData far) {
+    public long byteSize() {
+        return near.byteSize() + far.byteSize();
+    }
+}
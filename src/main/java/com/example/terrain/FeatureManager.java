@@ -2,92 +2,186 @@ package com.example.terrain;
 
 import org.joml.Vector3f;
 
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
 public class FeatureManager {
-    private final Map<Long, FeatureChunk> chunks = new ConcurrentHashMap<>();
-    private final ConcurrentLinkedQueue<UploadCommand> uploadQueue = new ConcurrentLinkedQueue<>();
-    private final ExecutorService executor;
+    private static final int FEATURE_WEIGHT = 1;
+    private static final int MAX_UPLOAD_BACKLOG = 16;
+    private static final long MESH_CACHE_BYTES = 32L * 1024 * 1024;
+    private static final float NEAR_BAND_CHUNKS = 2.5f;
+    private static final float BAND_HYSTERESIS_CHUNKS = 0.25f;
+
+    private final LongObjectMap<FeatureChunk> chunks;
+    private final UploadStage<UploadCommand> uploads = new UploadStage<>();
+    private final ByteSizeLruCache<Long, FeatureLodData> meshCache = new ByteSizeLruCache<>(MESH_CACHE_BYTES, FeatureLodData::byteSize);
+    private final UploadBudget uploadBudget;
+    private final BuildScheduler scheduler;
     private final FeatureMeshBuilder builder;
     private final int chunkSize;
-    private final int featureDistance;
+    private final float nearDistance;
+    private final float bandHysteresis;
+    private final ChunkWindow window;
+    private final ChunkWindow.CellVisitor enterCell = this::enterCell;
+    private final ChunkWindow.CellVisitor leaveCell = this::leaveCell;
+    private final UploadStage.Uploader<UploadCommand> uploader = this::uploadMeshes;
+    private FeaturePrototypeSet prototypes;
+    private volatile float cameraX;
+    private volatile float cameraZ;
 
-    public FeatureManager(TerrainGenerator generator, int chunkSize, int featureDistance, int seed) {
+    public FeatureManager(HeightTileCache heightTiles, int chunkSize, int featureDistance, int seed, GenerationExecutor executor,
+                          UploadBudget uploadBudget) {
         this.chunkSize = chunkSize;
-        this.featureDistance = featureDistance;
-        this.builder = new FeatureMeshBuilder(generator, chunkSize, seed);
-        int threadCount = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
-        this.executor = Executors.newFixedThreadPool(threadCount);
+        this.nearDistance = chunkSize * NEAR_BAND_CHUNKS;
+        this.bandHysteresis = chunkSize * BAND_HYSTERESIS_CHUNKS;
+        this.uploadBudget = uploadBudget;
+        this.window = new ChunkWindow(featureDistance);
+        this.chunks = new LongObjectMap<>((2 * featureDistance + 1) * (2 * featureDistance + 1));
+        this.builder = new FeatureMeshBuilder(heightTiles, chunkSize, seed);
+        this.scheduler = new BuildScheduler(chunkSize);
+        executor.register("features", scheduler, FEATURE_WEIGHT, uploads, MAX_UPLOAD_BACKLOG);
     }
 
-    public void update(Vector3f cameraPosition) {
+    public void update(Vector3f cameraPosition, Vector3f cameraForward) {
+        scheduler.updateView(cameraPosition.x, cameraPosition.z, cameraForward.x, cameraForward.z);
+        cameraX = cameraPosition.x;
+        cameraZ = cameraPosition.z;
         int cameraChunkX = (int) Math.floor(cameraPosition.x / chunkSize);
         int cameraChunkZ = (int) Math.floor(cameraPosition.z / chunkSize);
 
-        Set<Long> needed = new HashSet<>();
-        for (int dz = -featureDistance; dz <= featureDistance; dz++) {
-            for (int dx = -featureDistance; dx <= featureDistance; dx++) {
-                int chunkX = cameraChunkX + dx;
-                int chunkZ = cameraChunkZ + dz;
-                long key = pack(chunkX, chunkZ);
-                needed.add(key);
-                if (!chunks.containsKey(key)) {
-                    FeatureChunk chunk = new FeatureChunk(chunkX, chunkZ);
-                    chunks.put(key, chunk);
-                    submitBuild(chunkX, chunkZ);
-                }
-            }
-        }
-
-        chunks.entrySet().removeIf(entry -> {
-            if (!needed.contains(entry.getKey())) {
-                entry.getValue().dispose();
-                return true;
-            }
-            return false;
-        });
-
-        UploadCommand command;
-        while ((command = uploadQueue.poll()) != null) {
-            FeatureChunk chunk = chunks.get(pack(command.chunkX(), command.chunkZ()));
-            if (chunk != null) {
-                FeatureMesh nearMesh = FeatureMesh.upload(command.nearMesh());
-                FeatureMesh farMesh = FeatureMesh.upload(command.farMesh());
-                chunk.setMeshes(nearMesh, farMesh);
+        if (window.moveTo(cameraChunkX, cameraChunkZ, leaveCell, enterCell)) {
+            for (int i = 0; i < chunks.size(); i++) {
+                refreshBand(chunks.valueAt(i));
             }
         }
+        uploads.drain(cameraChunkX, cameraChunkZ, uploadBudget, uploader);
     }
 
     public Iterable<FeatureChunk> getChunks() {
         return chunks.values();
     }
 
+    public FeaturePrototypeSet getPrototypes() {
+        if (prototypes == null) {
+            prototypes = new FeaturePrototypeSet();
+        }
+        return prototypes;
+    }
+
+    public int getChunkCount() {
+        return chunks.size();
+    }
+
+    public FeatureChunk getChunk(int index) {
+        return chunks.valueAt(index);
+    }
+
+    public ByteSizeLruCache.Stats getMeshCacheStats() {
+        return meshCache.getStats();
+    }
+
     public void shutdown() {
-        executor.shutdownNow();
+        scheduler.clear();
+        uploads.clear();
+        meshCache.clear();
         for (FeatureChunk chunk : chunks.values()) {
             chunk.dispose();
         }
         chunks.clear();
+        window.reset();
+        if (prototypes != null) {
+            prototypes.dispose();
+            prototypes = null;
+        }
+    }
+
+    private void enterCell(int chunkX, int chunkZ) {
+        long key = pack(chunkX, chunkZ);
+        if (chunks.containsKey(key)) {
+            return;
+        }
+        chunks.put(key, new FeatureChunk(chunkX, chunkZ));
+        FeatureLodData cached = meshCache.take(key);
+        if (cached != null) {
+            offer(chunkX, chunkZ, cached, isNear(chunkX, chunkZ));
+        } else {
+            submitBuild(chunkX, chunkZ);
+        }
+    }
+
+    private void leaveCell(int chunkX, int chunkZ) {
+        long key = pack(chunkX, chunkZ);
+        FeatureChunk chunk = chunks.remove(key);
+        if (chunk == null) {
+            return;
+        }
+        scheduler.cancel(chunkX, chunkZ);
+        if (chunk.getNearData() != null) {
+            meshCache.put(key, new FeatureLodData(chunk.getNearData(), chunk.getFarData()));
+        }
+        chunk.dispose();
     }
 
     private void submitBuild(int chunkX, int chunkZ) {
-        executor.submit(() -> {
-            FeatureMeshData near = builder.buildNear(chunkX, chunkZ);
-            FeatureMeshData far = builder.buildFar(chunkX, chunkZ);
-            uploadQueue.add(new UploadCommand(chunkX, chunkZ, near, far));
-        });
+        scheduler.submit(chunkX, chunkZ, 0, () -> offer(chunkX, chunkZ, builder.build(chunkX, chunkZ), isNear(chunkX, chunkZ)));
+    }
+
+    private void offer(int chunkX, int chunkZ, FeatureLodData lods, boolean near) {
+        UploadCommand command = new UploadCommand(chunkX, chunkZ, lods, near);
+        uploads.offer(chunkX, chunkZ, command.byteSize(), command);
+    }
+
+    private UploadStage.Result uploadMeshes(UploadCommand command) {
+        FeatureChunk chunk = chunks.get(pack(command.chunkX(), command.chunkZ()));
+        if (chunk == null) {
+            return UploadStage.Result.DROPPED;
+        }
+        if (chunk.getNearData() == null) {
+            chunk.setData(command.lods().near(), command.lods().far());
+        }
+        boolean uploaded = false;
+        if (command.near() && chunk.getNearInstances() == null) {
+            chunk.setNearInstances(FeatureInstanceBuffer.upload(chunk.getNearData()));
+            uploaded = true;
+        } else if (!command.near() && chunk.getFarInstances() == null) {
+            chunk.setFarInstances(FeatureInstanceBuffer.upload(chunk.getFarData()));
+            uploaded = true;
+        }
+        refreshBand(chunk);
+        return uploaded ? UploadStage.Result.UPLOADED : UploadStage.Result.DROPPED;
+    }
+
+    private boolean isNear(int chunkX, int chunkZ) {
+        return distanceTo(chunkX, chunkZ) < nearDistance;
+    }
+
+    private float distanceTo(int chunkX, int chunkZ) {
+        float dx = (chunkX + 0.5f) * chunkSize - cameraX;
+        float dz = (chunkZ + 0.5f) * chunkSize - cameraZ;
+        return (float) Math.sqrt(dx * dx + dz * dz);
+    }
+
+    private void refreshBand(FeatureChunk chunk) {
+        if (chunk.getNearData() == null) {
+            return;
+        }
+        float distance = distanceTo(chunk.getChunkX(), chunk.getChunkZ());
+        boolean near = distance < nearDistance;
+        chunk.setNear(near);
+        if (near ? chunk.getNearInstances() == null : chunk.getFarInstances() == null) {
+            offer(chunk.getChunkX(), chunk.getChunkZ(), new FeatureLodData(chunk.getNearData(), chunk.getFarData()), near);
+        }
+        if (distance > nearDistance + bandHysteresis && chunk.getFarInstances() != null) {
+            chunk.releaseNearInstances();
+        } else if (distance < nearDistance - bandHysteresis && chunk.getNearInstances() != null) {
+            chunk.releaseFarInstances();
+        }
     }
 
     private long pack(int x, int z) {
         return (((long) x) << 32) ^ (z & 0xffffffffL);
     }
 
-    public record UploadCommand(int chunkX, int chunkZ, FeatureMeshData nearMesh, FeatureMeshData farMesh) {
+    public record UploadCommand(int chunkX, int chunkZ, FeatureLodData lods, boolean near) {
+        public long byteSize() {
+            return near ? lods.near().byteSize() : lods.far().byteSize();
+        }
     }
 }
@@ -1,70 +0,0 @@
-package com.example.terrain;
-
-import org.lwjgl.system.MemoryUtil;
-
-import java.nio.FloatBuffer;
-import java.nio.IntBuffer;
-
-import static org.lwjgl.opengl.GL46.*;
-
-public class FeatureMesh {
-    private final int vaoId;
-    private final int vboId;
-    private final int eboId;
-    private final int indexCount;
-
-    private FeatureMesh(int vaoId, int vboId, int eboId, int indexCount) {
-        this.vaoId = vaoId;
-        this.vboId = vboId;
-        this.eboId = eboId;
-        this.indexCount = indexCount;
-    }
-
-    public static FeatureMesh upload(FeatureMeshData data) {
-        int vao = glGenVertexArrays();
-        int vbo = glGenBuffers();
-        int ebo = glGenBuffers();
-
-        glBindVertexArray(vao);
-
-        FloatBuffer vertexBuffer = MemoryUtil.memAllocFloat(data.vertices().length);
-        vertexBuffer.put(data.vertices()).flip();
-        glBindBuffer(GL_ARRAY_BUFFER, vbo);
-        glBufferData(GL_ARRAY_BUFFER, vertexBuffer, GL_STATIC_DRAW);
-        MemoryUtil.memFree(vertexBuffer);
-
-        IntBuffer indexBuffer = MemoryUtil.memAllocInt(data.indices().length);
-        indexBuffer.put(data.indices()).flip();
-        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, ebo);
-        glBufferData(GL_ELEMENT_ARRAY_BUFFER, indexBuffer, GL_STATIC_DRAW);
-        MemoryUtil.memFree(indexBuffer);
-
-        int stride = 9 * Float.BYTES;
-        glEnableVertexAttribArray(0);
-        glVertexAttribPointer(0, 3, GL_FLOAT, false, stride, 0);
-        glEnableVertexAttribArray(1);
-        glVertexAttribPointer(1, 3, GL_FLOAT, false, stride, 3L * Float.BYTES);
-        glEnableVertexAttribArray(2);
-        glVertexAttribPointer(2, 3, GL_FLOAT, false, stride, 6L * Float.BYTES);
-
-        glBindVertexArray(0);
-        glBindBuffer(GL_ARRAY_BUFFER, 0);
-
-        return new FeatureMesh(vao, vbo, ebo, data.indices().length);
-    }
-
-    public void draw() {
-        if (indexCount == 0) {
-            return;
-        }
-        glBindVertexArray(vaoId);
-        glDrawElements(GL_TRIANGLES, indexCount, GL_UNSIGNED_INT, 0);
-        glBindVertexArray(0);
-    }
-
-    public void dispose() {
-        glDeleteBuffers(vboId);
-        glDeleteBuffers(eboId);
-        glDeleteVertexArrays(vaoId);
-    }
-}
@@ -2,35 +2,66 @@ package com.example.terrain;
 
 import org.joml.Vector3f;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public class FeatureMeshBuilder {
-    private final TerrainGenerator generator;
+    private static final float[] GRASS_COLOR = {0.25f, 0.6f, 0.2f};
+    private static final float[] ROCK_COLOR = {0.45f, 0.45f, 0.45f};
+    private static final float[] TRUNK_COLOR = {0.35f, 0.22f, 0.1f};
+    private static final float[] LEAVES_COLOR = {0.2f, 0.5f, 0.2f};
+    private static final float TWO_PI = (float) (Math.PI * 2.0);
+    private static final int FLOATS_PER_VERTEX = 9;
+    private static final float[] BOX_NORMALS = {
+            0, 0, 1,
+            0, 0, -1,
+            1, 0, 0,
+            -1, 0, 0,
+            0, 1, 0,
+            0, -1, 0
+    };
+    private static final float[] BOX_CORNERS = {
+            -1, -1, 1, 1, -1, 1, 1, 1, 1, -1, 1, 1,
+            1, -1, -1, -1, -1, -1, -1, 1, -1, 1, 1, -1,
+            1, -1, 1, 1, -1, -1, 1, 1, -1, 1, 1, 1,
+            -1, -1, -1, -1, -1, 1, -1, 1, 1, -1, 1, -1,
+            -1, 1, 1, 1, 1, 1, 1, 1, -1, -1, 1, -1,
+            -1, -1, -1, 1, -1, -1, 1, -1, 1, -1, -1, 1
+    };
+    private static final FeatureMeshData[] PROTOTYPE_MESHES = prototypeMeshes();
+
+    private final HeightTileCache heightTiles;
     private final int chunkSize;
     private final int seed;
 
-    public FeatureMeshBuilder(TerrainGenerator generator, int chunkSize, int seed) {
-        this.generator = generator;
+    public FeatureMeshBuilder(HeightTileCache heightTiles, int chunkSize, int seed) {
+        this.heightTiles = heightTiles;
         this.chunkSize = chunkSize;
         this.seed = seed;
     }
 
-    public FeatureMeshData buildNear(int chunkX, int chunkZ) {
-        MeshDataBuilder builder = new MeshDataBuilder();
-        spawnGrass(builder, chunkX, chunkZ);
-        spawnRocks(builder, chunkX, chunkZ);
-        spawnTrees(builder, chunkX, chunkZ, true);
-        return builder.toMeshData();
+    public static FeatureMeshData buildPrototype(FeaturePrototype prototype) {
+        return PROTOTYPE_MESHES[prototype.ordinal()];
+    }
+
+    public FeatureLodData build(int chunkX, int chunkZ) {
+        FeatureInstanceWriter near = new FeatureInstanceWriter();
+        FeatureInstanceWriter far = new FeatureInstanceWriter();
+        near.reserve(FeaturePrototype.GRASS, expectedInstances(4, 0.55f));
+        near.reserve(FeaturePrototype.ROCK, expectedInstances(12, 0.25f));
+        near.reserve(FeaturePrototype.TRUNK, expectedInstances(20, 0.18f));
+        near.reserve(FeaturePrototype.CANOPY, expectedInstances(20, 0.18f));
+        far.reserve(FeaturePrototype.BILLBOARD, expectedInstances(20, 0.18f));
+        ChunkHeightfield tile = heightTiles.get(chunkX, chunkZ);
+        spawnGrass(near, tile, chunkX, chunkZ);
+        spawnRocks(near, tile, chunkX, chunkZ);
+        spawnTrees(near, far, tile, chunkX, chunkZ);
+        return new FeatureLodData(near.toInstanceData(), far.toInstanceData());
     }
 
-    public FeatureMeshData buildFar(int chunkX, int chunkZ) {
-        MeshDataBuilder builder = new MeshDataBuilder();
-        spawnTrees(builder, chunkX, chunkZ, false);
-        return builder.toMeshData();
+    private int expectedInstances(int spacing, float chance) {
+        int cells = (chunkSize + spacing - 1) / spacing;
+        return (int) Math.ceil(cells * cells * chance * 1.25f);
     }
 
-    private void spawnGrass(MeshDataBuilder builder, int chunkX, int chunkZ) {
+    private void spawnGrass(FeatureInstanceWriter writer, ChunkHeightfield tile, int chunkX, int chunkZ) {
         int spacing = 4;
         float chance = 0.55f;
         for (int z = 0; z < chunkSize; z += spacing) {
@@ -40,14 +71,14 @@ public class FeatureMeshBuilder {
                 if (random(worldX, worldZ, 101) > chance) {
                     continue;
                 }
-                float height = generator.getHeight(worldX, worldZ);
-                Vector3f color = new Vector3f(0.25f, 0.6f, 0.2f);
-                builder.addCrossQuad(worldX + 0.5f, height, worldZ + 0.5f, 0.2f, 0.8f, color);
+                float height = tile.sampleHeight(x + 0.5f, z + 0.5f);
+                float rotation = random(worldX, worldZ, 307) * TWO_PI;
+                writer.add(FeaturePrototype.GRASS, worldX + 0.5f, height, worldZ + 0.5f, 1.0f, 1.0f, rotation, GRASS_COLOR);
             }
         }
     }
 
-    private void spawnRocks(MeshDataBuilder builder, int chunkX, int chunkZ) {
+    private void spawnRocks(FeatureInstanceWriter writer, ChunkHeightfield tile, int chunkX, int chunkZ) {
         int spacing = 12;
         float chance = 0.25f;
         for (int z = 0; z < chunkSize; z += spacing) {
@@ -57,15 +88,15 @@ public class FeatureMeshBuilder {
                 if (random(worldX, worldZ, 203) > chance) {
                     continue;
                 }
-                float height = generator.getHeight(worldX, worldZ);
+                float height = tile.sampleHeight(x + 0.5f, z + 0.5f);
                 float scale = 0.4f + random(worldX, worldZ, 17) * 0.6f;
-                Vector3f color = new Vector3f(0.45f, 0.45f, 0.45f);
-                builder.addBox(worldX + 0.5f, height + scale * 0.5f, worldZ + 0.5f, scale, scale * 0.6f, scale, color);
+                float rotation = random(worldX, worldZ, 211) * TWO_PI;
+                writer.add(FeaturePrototype.ROCK, worldX + 0.5f, height + scale * 0.5f, worldZ + 0.5f, scale, scale, rotation, ROCK_COLOR);
             }
         }
     }
 
-    private void spawnTrees(MeshDataBuilder builder, int chunkX, int chunkZ, boolean near) {
+    private void spawnTrees(FeatureInstanceWriter near, FeatureInstanceWriter far, ChunkHeightfield tile, int chunkX, int chunkZ) {
         int spacing = 20;
         float chance = 0.18f;
         for (int z = 0; z < chunkSize; z += spacing) {
@@ -75,18 +106,12 @@ public class FeatureMeshBuilder {
                 if (random(worldX, worldZ, 401) > chance) {
                     continue;
                 }
-                float height = generator.getHeight(worldX, worldZ);
+                float height = tile.sampleHeight(x + 0.5f, z + 0.5f);
                 float trunkHeight = 2.5f + random(worldX, worldZ, 99) * 1.5f;
                 float trunkRadius = 0.25f;
-                Vector3f trunkColor = new Vector3f(0.35f, 0.22f, 0.1f);
-                if (near) {
-                    builder.addBox(worldX + 0.5f, height + trunkHeight * 0.5f, worldZ + 0.5f, trunkRadius, trunkHeight, trunkRadius, trunkColor);
-                    Vector3f leaves = new Vector3f(0.2f, 0.5f, 0.2f);
-                    builder.addCrossQuad(worldX + 0.5f, height + trunkHeight, worldZ + 0.5f, 1.2f, 1.6f, leaves);
-                } else {
-                    Vector3f leaves = new Vector3f(0.2f, 0.5f, 0.2f);
-                    builder.addBillboard(worldX + 0.5f, height + trunkHeight * 0.7f, worldZ + 0.5f, 1.2f, 1.8f, leaves);
-                }
+                near.add(FeaturePrototype.TRUNK, worldX + 0.5f, height + trunkHeight * 0.5f, worldZ + 0.5f, trunkRadius, trunkHeight, 0.0f, TRUNK_COLOR);
+                near.add(FeaturePrototype.CANOPY, worldX + 0.5f, height + trunkHeight, worldZ + 0.5f, 1.0f, 1.0f, 0.0f, LEAVES_COLOR);
+                far.add(FeaturePrototype.BILLBOARD, worldX + 0.5f, height + trunkHeight * 0.7f, worldZ + 0.5f, 1.0f, 1.0f, 0.0f, LEAVES_COLOR);
             }
         }
     }
@@ -101,95 +126,77 @@ public class FeatureMeshBuilder {
         return (h & 0xffff) / 65535.0f;
     }
 
-    private static class MeshDataBuilder {
-        private final List<Float> vertices = new ArrayList<>();
-        private final List<Integer> indices = new ArrayList<>();
-
-        public void addCrossQuad(float x, float y, float z, float halfWidth, float height, Vector3f color) {
-            addQuad(x, y, z, halfWidth, height, color, 0.0f);
-            addQuad(x, y, z, halfWidth, height, color, (float) Math.toRadians(90.0));
-        }
-
-        public void addBillboard(float x, float y, float z, float halfWidth, float height, Vector3f color) {
-            addQuad(x, y, z, halfWidth, height, color, 0.0f);
+    private static FeatureMeshData[] prototypeMeshes() {
+        FeaturePrototype[] prototypes = FeaturePrototype.values();
+        FeatureMeshData[] meshes = new FeatureMeshData[prototypes.length];
+        for (FeaturePrototype prototype : prototypes) {
+            meshes[prototype.ordinal()] = switch (prototype) {
+                case GRASS -> quads(0.2f, 0.8f, 2);
+                case ROCK -> box(1.0f, 0.6f, 1.0f);
+                case TRUNK -> box(1.0f, 1.0f, 1.0f);
+                case CANOPY -> quads(1.2f, 1.6f, 2);
+                case BILLBOARD -> quads(1.2f, 1.8f, 1);
+            };
         }
+        return meshes;
+    }
 
-        private void addQuad(float x, float y, float z, float halfWidth, float height, Vector3f color, float rotation) {
+    private static FeatureMeshData quads(float halfWidth, float height, int orientations) {
+        float[] vertices = new float[orientations * 4 * FLOATS_PER_VERTEX];
+        int[] indices = new int[orientations * 6];
+        for (int i = 0; i < orientations; i++) {
+            float rotation = (float) Math.toRadians(90.0 * i);
             float cos = (float) Math.cos(rotation);
             float sin = (float) Math.sin(rotation);
-            Vector3f right = new Vector3f(cos, 0.0f, sin).mul(halfWidth);
             Vector3f normal = new Vector3f(-sin, 0.0f, cos).normalize();
-
-            int baseIndex = vertices.size() / 9;
-
-            addVertex(x - right.x, y, z - right.z, normal, color);
-            addVertex(x + right.x, y, z + right.z, normal, color);
-            addVertex(x + right.x, y + height, z + right.z, normal, color);
-            addVertex(x - right.x, y + height, z - right.z, normal, color);
-
-            addQuadIndices(baseIndex);
+            float rightX = cos * halfWidth;
+            float rightZ = sin * halfWidth;
+            int vertex = i * 4;
+            putVertex(vertices, vertex, -rightX, 0.0f, -rightZ, normal.x, normal.y, normal.z);
+            putVertex(vertices, vertex + 1, rightX, 0.0f, rightZ, normal.x, normal.y, normal.z);
+            putVertex(vertices, vertex + 2, rightX, height, rightZ, normal.x, normal.y, normal.z);
+            putVertex(vertices, vertex + 3, -rightX, height, -rightZ, normal.x, normal.y, normal.z);
+            putQuadIndices(indices, i, vertex);
         }
+        return new FeatureMeshData(vertices, indices);
+    }
 
-        public void addBox(float x, float y, float z, float halfWidth, float halfHeight, float halfDepth, Vector3f color) {
-            Vector3f[] normals = {
-                    new Vector3f(0, 0, 1),
-                    new Vector3f(0, 0, -1),
-                    new Vector3f(1, 0, 0),
-                    new Vector3f(-1, 0, 0),
-                    new Vector3f(0, 1, 0),
-                    new Vector3f(0, -1, 0)
-            };
-            float[][] faces = {
-                    {-halfWidth, -halfHeight, halfDepth, halfWidth, -halfHeight, halfDepth, halfWidth, halfHeight, halfDepth, -halfWidth, halfHeight, halfDepth},
-                    {halfWidth, -halfHeight, -halfDepth, -halfWidth, -halfHeight, -halfDepth, -halfWidth, halfHeight, -halfDepth, halfWidth, halfHeight, -halfDepth},
-                    {halfWidth, -halfHeight, halfDepth, halfWidth, -halfHeight, -halfDepth, halfWidth, halfHeight, -halfDepth, halfWidth, halfHeight, halfDepth},
-                    {-halfWidth, -halfHeight, -halfDepth, -halfWidth, -halfHeight, halfDepth, -halfWidth, halfHeight, halfDepth, -halfWidth, halfHeight, -halfDepth},
-                    {-halfWidth, halfHeight, halfDepth, halfWidth, halfHeight, halfDepth, halfWidth, halfHeight, -halfDepth, -halfWidth, halfHeight, -halfDepth},
-                    {-halfWidth, -halfHeight, -halfDepth, halfWidth, -halfHeight, -halfDepth, halfWidth, -halfHeight, halfDepth, -halfWidth, -halfHeight, halfDepth}
-            };
-
-            for (int i = 0; i < faces.length; i++) {
-                int baseIndex = vertices.size() / 9;
-                float[] face = faces[i];
-                addVertex(x + face[0], y + face[1], z + face[2], normals[i], color);
-                addVertex(x + face[3], y + face[4], z + face[5], normals[i], color);
-                addVertex(x + face[6], y + face[7], z + face[8], normals[i], color);
-                addVertex(x + face[9], y + face[10], z + face[11], normals[i], color);
-                addQuadIndices(baseIndex);
+    private static FeatureMeshData box(float halfWidth, float halfHeight, float halfDepth) {
+        float[] vertices = new float[6 * 4 * FLOATS_PER_VERTEX];
+        int[] indices = new int[6 * 6];
+        for (int face = 0; face < 6; face++) {
+            for (int corner = 0; corner < 4; corner++) {
+                int c = face * 12 + corner * 3;
+                putVertex(vertices, face * 4 + corner,
+                        BOX_CORNERS[c] * halfWidth, BOX_CORNERS[c + 1] * halfHeight, BOX_CORNERS[c + 2] * halfDepth,
+                        BOX_NORMALS[face * 3], BOX_NORMALS[face * 3 + 1], BOX_NORMALS[face * 3 + 2]);
             }
+            putQuadIndices(indices, face, face * 4);
         }
+        return new FeatureMeshData(vertices, indices);
+    }
 
-        private void addVertex(float x, float y, float z, Vector3f normal, Vector3f color) {
-            vertices.add(x);
-            vertices.add(y);
-            vertices.add(z);
-            vertices.add(normal.x);
-            vertices.add(normal.y);
-            vertices.add(normal.z);
-            vertices.add(color.x);
-            vertices.add(color.y);
-            vertices.add(color.z);
-        }
-
-        private void addQuadIndices(int baseIndex) {
-            indices.add(baseIndex);
-            indices.add(baseIndex + 1);
-            indices.add(baseIndex + 2);
-            indices.add(baseIndex);
-            indices.add(baseIndex + 2);
-            indices.add(baseIndex + 3);
-        }
+    private static void putVertex(float[] vertices, int vertex, float x, float y, float z,
+                                  float normalX, float normalY, float normalZ) {
+        int i = vertex * FLOATS_PER_VERTEX;
+        vertices[i] = x;
+        vertices[i + 1] = y;
+        vertices[i + 2] = z;
+        vertices[i + 3] = normalX;
+        vertices[i + 4] = normalY;
+        vertices[i + 5] = normalZ;
+        vertices[i + 6] = 1.0f;
+        vertices[i + 7] = 1.0f;
+        vertices[i + 8] = 1.0f;
+    }
 
-        public FeatureMeshData toMeshData() {
-            float[] vertexArray = new float[vertices.size()];
-            for (int i = 0; i < vertices.size(); i++) {
-                vertexArray[i] = vertices.get(i);
-            }
-            int[] indexArray = new int[indices.size()];
-            for (int i = 0; i < indices.size(); i++) {
-                indexArray[i] = indices.get(i);
-            }
-            return new FeatureMeshData(vertexArray, indexArray);
-        }
+    private static void putQuadIndices(int[] indices, int quad, int baseIndex) {
+        int i = quad * 6;
+        indices[i] = baseIndex;
+        indices[i + 1] = baseIndex + 1;
+        indices[i + 2] = baseIndex + 2;
+        indices[i + 3] = baseIndex;
+        indices[i + 4] = baseIndex + 2;
+        indices[i + 5] = baseIndex + 3;
     }
 }
@@ -1,4 +1,7 @@
 package com.example.terrain;
 
 public record FeatureMeshData(float[] vertices, int[] indices) {
+    public long byteSize() {
+        return (long) vertices.length * Float.BYTES + (long) indices.length * Integer.BYTES;
+    }
 }
@@ -0,0 +1,9 @@
+package com.example.terrain;
+
+public enum FeaturePrototype {
+    GRASS,
+    ROCK,
+    TRUNK,
+    CANOPY,
+    BILLBOARD
+}
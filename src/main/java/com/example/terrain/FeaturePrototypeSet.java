@@ -0,0 +1,103 @@
+package com.example.terrain;
+
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import static org.lwjgl.opengl.GL46.*;
+
+public class FeaturePrototypeSet {
+    private static final int FLOATS_PER_VERTEX = 9;
+    private static final int VERTEX_BINDING = 0;
+    private static final int INSTANCE_BINDING = 1;
+    private static final FeaturePrototype[] PROTOTYPES = FeaturePrototype.values();
+
+    private final int vaoId;
+    private final int vboId;
+    private final int eboId;
+    private final int[] indexCounts = new int[PROTOTYPES.length];
+    private final long[] indexOffsets = new long[PROTOTYPES.length];
+    private final int[] baseVertices = new int[PROTOTYPES.length];
+
+    public FeaturePrototypeSet() {
+        FeatureMeshData[] meshes = new FeatureMeshData[PROTOTYPES.length];
+        int vertexFloats = 0;
+        int indexTotal = 0;
+        for (FeaturePrototype prototype : PROTOTYPES) {
+            FeatureMeshData mesh = FeatureMeshBuilder.buildPrototype(prototype);
+            meshes[prototype.ordinal()] = mesh;
+            baseVertices[prototype.ordinal()] = vertexFloats / FLOATS_PER_VERTEX;
+            indexOffsets[prototype.ordinal()] = (long) indexTotal * Integer.BYTES;
+            indexCounts[prototype.ordinal()] = mesh.indices().length;
+            vertexFloats += mesh.vertices().length;
+            indexTotal += mesh.indices().length;
+        }
+
+        FloatBuffer vertexBuffer = MemoryUtil.memAllocFloat(vertexFloats);
+        IntBuffer indexBuffer = MemoryUtil.memAllocInt(indexTotal);
+        for (FeatureMeshData mesh : meshes) {
+            vertexBuffer.put(mesh.vertices());
+            indexBuffer.put(mesh.indices());
+        }
+        vertexBuffer.flip();
+        indexBuffer.flip();
+
+        vaoId = glCreateVertexArrays();
+        vboId = glCreateBuffers();
+        eboId = glCreateBuffers();
+        glNamedBufferStorage(vboId, vertexBuffer, 0);
+        glNamedBufferStorage(eboId, indexBuffer, 0);
+        MemoryUtil.memFree(vertexBuffer);
+        MemoryUtil.memFree(indexBuffer);
+
+        glVertexArrayVertexBuffer(vaoId, VERTEX_BINDING, vboId, 0, FLOATS_PER_VERTEX * Float.BYTES);
+        glVertexArrayElementBuffer(vaoId, eboId);
+        attribute(0, 3, GL_FLOAT, false, 0, VERTEX_BINDING);
+        attribute(1, 3, GL_FLOAT, false, 3 * Float.BYTES, VERTEX_BINDING);
+        attribute(2, 3, GL_FLOAT, false, 6 * Float.BYTES, VERTEX_BINDING);
+
+        glVertexArrayBindingDivisor(vaoId, INSTANCE_BINDING, 1);
+        attribute(3, 3, GL_FLOAT, false, FeatureInstanceFormat.POSITION_OFFSET, INSTANCE_BINDING);
+        attribute(4, 2, GL_HALF_FLOAT, false, FeatureInstanceFormat.SCALE_OFFSET, INSTANCE_BINDING);
+        attribute(5, 1, GL_UNSIGNED_SHORT, true, FeatureInstanceFormat.ROTATION_OFFSET, INSTANCE_BINDING);
+        attribute(6, 4, GL_UNSIGNED_BYTE, true, FeatureInstanceFormat.COLOR_OFFSET, INSTANCE_BINDING);
+    }
+
+    public void bind() {
+        glBindVertexArray(vaoId);
+    }
+
+    public void unbind() {
+        glBindVertexArray(0);
+    }
+
+    public void draw(FeatureInstanceBuffer instances) {
+        if (instances.getInstanceCount() == 0) {
+            return;
+        }
+        glVertexArrayVertexBuffer(vaoId, INSTANCE_BINDING, instances.getBufferId(), 0, FeatureInstanceFormat.STRIDE);
+        int baseInstance = 0;
+        for (FeaturePrototype prototype : PROTOTYPES) {
+            int count = instances.getCount(prototype);
+            if (count > 0) {
+                int slot = prototype.ordinal();
+                glDrawElementsInstancedBaseVertexBaseInstance(GL_TRIANGLES, indexCounts[slot], GL_UNSIGNED_INT,
+                        indexOffsets[slot], count, baseVertices[slot], baseInstance);
+            }
+            baseInstance += count;
+        }
+    }
+
+    public void dispose() {
+        glDeleteBuffers(vboId);
+        glDeleteBuffers(eboId);
+        glDeleteVertexArrays(vaoId);
+    }
+
+    private void attribute(int location, int size, int type, boolean normalized, int offset, int binding) {
+        glEnableVertexArrayAttrib(vaoId, location);
+        glVertexArrayAttribFormat(vaoId, location, size, type, normalized, offset);
+        glVertexArrayAttribBinding(vaoId, location, binding);
+    }
+}
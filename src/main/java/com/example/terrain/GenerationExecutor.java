@@ -0,0 +1,202 @@
+package com.example.terrain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class GenerationExecutor {
+    private static final Logger LOGGER = Logger.getLogger(GenerationExecutor.class.getName());
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    private final ExecutorService workers;
+    private final List<Lane> lanes = new ArrayList<>();
+    private final Object monitor = new Object();
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+    private final int parallelism;
+
+    public GenerationExecutor(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(this.parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "generation-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < this.parallelism; i++) {
+            workers.submit(this::runWorker);
+        }
+    }
+
+    public static int defaultParallelism() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 2);
+    }
+
+    public Lane register(String name, BuildScheduler scheduler, int weight, UploadStage<?> uploads, int maxUploadBacklog) {
+        Lane lane = new Lane(name, scheduler, Math.max(1, weight), uploads, maxUploadBacklog);
+        scheduler.setSubmitListener(this::signal);
+        uploads.setDrainListener(this::signalAll);
+        synchronized (monitor) {
+            lanes.add(lane);
+        }
+        return lane;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getActiveWorkers() {
+        return activeWorkers.get();
+    }
+
+    public List<LaneStats> getStats() {
+        synchronized (monitor) {
+            List<LaneStats> stats = new ArrayList<>(lanes.size());
+            for (Lane lane : lanes) {
+                stats.add(lane.snapshot());
+            }
+            return stats;
+        }
+    }
+
+    public void shutdown() {
+        workers.shutdownNow();
+        boolean terminated = false;
+        try {
+            terminated = workers.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!terminated) {
+            throw new IllegalStateException("Generation workers did not stop within " + SHUTDOWN_TIMEOUT_SECONDS + " s");
+        }
+    }
+
+    private void signal() {
+        synchronized (monitor) {
+            monitor.notify();
+        }
+    }
+
+    private void signalAll() {
+        synchronized (monitor) {
+            monitor.notifyAll();
+        }
+    }
+
+    private void runWorker() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Lane lane;
+                BuildScheduler.BuildTask task;
+                synchronized (monitor) {
+                    while (true) {
+                        lane = selectLane();
+                        task = lane != null ? lane.scheduler.poll() : null;
+                        if (task != null) {
+                            break;
+                        }
+                        monitor.wait();
+                    }
+                }
+                long started = System.nanoTime();
+                lane.recordWait(started - task.getSubmittedNanos());
+                activeWorkers.incrementAndGet();
+                try {
+                    task.run();
+                    lane.scheduler.complete(task);
+                } catch (Throwable e) {
+                    reportFailure(lane, task, e);
+                } finally {
+                    activeWorkers.decrementAndGet();
+                    lane.recordCompleted(System.nanoTime() - started);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void reportFailure(Lane lane, BuildScheduler.BuildTask task, Throwable error) {
+        boolean retried = lane.scheduler.fail(task);
+        lane.recordFailure();
+        LOGGER.log(retried ? Level.WARNING : Level.SEVERE, String.format("%s build of %d,%d lod %d failed on attempt %d%s",
+                lane.name, task.getChunkX(), task.getChunkZ(), task.getLod(), task.getAttempt(),
+                retried ? ", retrying" : ", not retrying"), error);
+    }
+
+    private Lane selectLane() {
+        int totalWeight = 0;
+        Lane best = null;
+        for (Lane lane : lanes) {
+            if (!lane.isEligible()) {
+                continue;
+            }
+            lane.credit += lane.weight;
+            totalWeight += lane.weight;
+            if (best == null || lane.credit > best.credit) {
+                best = lane;
+            }
+        }
+        if (best != null) {
+            best.credit -= totalWeight;
+        }
+        return best;
+    }
+
+    public record LaneStats(String name, int queued, int uploadBacklog, long completed, long failed, double averageWaitMillis,
+                            double maxWaitMillis, double averageBuildMillis) {
+    }
+
+    public static final class Lane {
+        private final String name;
+        private final BuildScheduler scheduler;
+        private final int weight;
+        private final UploadStage<?> uploads;
+        private final int maxUploadBacklog;
+        private int credit;
+        private long completed;
+        private long failed;
+        private long totalWaitNanos;
+        private long maxWaitNanos;
+        private long totalBuildNanos;
+
+        private Lane(String name, BuildScheduler scheduler, int weight, UploadStage<?> uploads, int maxUploadBacklog) {
+            this.name = name;
+            this.scheduler = scheduler;
+            this.weight = weight;
+            this.uploads = uploads;
+            this.maxUploadBacklog = maxUploadBacklog;
+        }
+
+        private boolean isEligible() {
+            return scheduler.pendingCount() > 0 && uploads.pendingCount() < maxUploadBacklog;
+        }
+
+        private synchronized void recordWait(long waitNanos) {
+            totalWaitNanos += waitNanos;
+            maxWaitNanos = Math.max(maxWaitNanos, waitNanos);
+        }
+
+        private synchronized void recordCompleted(long buildNanos) {
+            completed++;
+            totalBuildNanos += buildNanos;
+        }
+
+        private synchronized void recordFailure() {
+            failed++;
+        }
+
+        private synchronized LaneStats snapshot() {
+            double averageWait = completed == 0 ? 0.0 : totalWaitNanos / (double) completed / 1_000_000.0;
+            double averageBuild = completed == 0 ? 0.0 : totalBuildNanos / (double) completed / 1_000_000.0;
+            return new LaneStats(name, scheduler.pendingCount(), uploads.pendingCount(), completed, failed, averageWait,
+                    maxWaitNanos / 1_000_000.0, averageBuild);
+        }
+    }
+}
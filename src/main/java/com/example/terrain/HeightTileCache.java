@@ -0,0 +1,43 @@
+package com.example.terrain;
+
+public class HeightTileCache {
+    private final ByteSizeLruCache<Long, ChunkHeightfield> tiles;
+    private final ChunkMeshBuilder sampler;
+
+    public HeightTileCache(TerrainGenerator generator, int chunkSize, long maxBytes) {
+        this.tiles = new ByteSizeLruCache<>(maxBytes, ChunkHeightfield::byteSize);
+        this.sampler = new ChunkMeshBuilder(generator, chunkSize);
+    }
+
+    public ChunkHeightfield get(int chunkX, int chunkZ) {
+        long key = pack(chunkX, chunkZ);
+        ChunkHeightfield tile = tiles.get(key);
+        if (tile == null) {
+            tile = sampler.sampleHeights(chunkX, chunkZ);
+            tiles.put(key, tile);
+        }
+        return tile;
+    }
+
+    public ChunkHeightfield peek(int chunkX, int chunkZ) {
+        return tiles.peek(pack(chunkX, chunkZ));
+    }
+
+    public void put(int chunkX, int chunkZ, ChunkHeightfield tile) {
+        if (tile.lod() == 0) {
+            tiles.put(pack(chunkX, chunkZ), tile);
+        }
+    }
+
+    public ByteSizeLruCache.Stats getStats() {
+        return tiles.getStats();
+    }
+
+    public void clear() {
+        tiles.clear();
+    }
+
+    private long pack(int x, int z) {
+        return (((long) x) << 32) ^ (z & 0xffffffffL);
+    }
+}
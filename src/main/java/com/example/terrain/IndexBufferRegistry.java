@@ -0,0 +1,221 @@
+package com.example.terrain;
+
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.lwjgl.opengl.GL46.*;
+
+public class IndexBufferRegistry {
+    public static final int EDGE_NEG_X = 0;
+    public static final int EDGE_POS_X = 1;
+    public static final int EDGE_NEG_Z = 2;
+    public static final int EDGE_POS_Z = 3;
+    public static final int EDGE_COUNT = 4;
+    public static final int INTERIOR = EDGE_COUNT;
+    private static final int NO_EDGE = -1;
+    private static final int MAX_SHORT_VERTICES = 1 << 16;
+    private static final Map<Long, int[]> GROUP_INDICES = new ConcurrentHashMap<>();
+
+    private final Map<Integer, PatchIndices> patches = new HashMap<>();
+    private final int eboId;
+    private final int indexType;
+
+    public IndexBufferRegistry(int... vertsPerSideVariants) {
+        int maxVertsPerSide = 0;
+        int indexTotal = 0;
+        for (int vertsPerSide : vertsPerSideVariants) {
+            maxVertsPerSide = Math.max(maxVertsPerSide, vertsPerSide);
+            indexTotal += groupIndices(vertsPerSide, INTERIOR, 0).length;
+            for (int collapse = 0; collapse <= maxCollapse(vertsPerSide); collapse++) {
+                for (int edge = 0; edge < EDGE_COUNT; edge++) {
+                    indexTotal += groupIndices(vertsPerSide, edge, collapse).length;
+                }
+            }
+        }
+        boolean shortIndices = maxVertsPerSide * maxVertsPerSide <= MAX_SHORT_VERTICES;
+        ByteBuffer buffer = MemoryUtil.memAlloc(indexTotal * (shortIndices ? Short.BYTES : Integer.BYTES));
+        for (int vertsPerSide : vertsPerSideVariants) {
+            SharedIndexBuffer interior = put(buffer, groupIndices(vertsPerSide, INTERIOR, 0), shortIndices);
+            SharedIndexBuffer[][] edges = new SharedIndexBuffer[EDGE_COUNT][maxCollapse(vertsPerSide) + 1];
+            for (int collapse = 0; collapse < edges[0].length; collapse++) {
+                for (int edge = 0; edge < EDGE_COUNT; edge++) {
+                    edges[edge][collapse] = put(buffer, groupIndices(vertsPerSide, edge, collapse), shortIndices);
+                }
+            }
+            patches.put(vertsPerSide, new PatchIndices(interior, edges));
+        }
+        buffer.flip();
+
+        this.eboId = glCreateBuffers();
+        this.indexType = shortIndices ? GL_UNSIGNED_SHORT : GL_UNSIGNED_INT;
+        glNamedBufferStorage(eboId, buffer, 0);
+        MemoryUtil.memFree(buffer);
+    }
+
+    public static int maxCollapse(int vertsPerSide) {
+        return Integer.numberOfTrailingZeros(vertsPerSide - 1);
+    }
+
+    public static int[] groupIndices(int vertsPerSide, int group, int collapse) {
+        long key = ((long) vertsPerSide << 32) | ((long) group << 16) | collapse;
+        return GROUP_INDICES.computeIfAbsent(key, k -> buildGroupIndices(vertsPerSide, group, collapse));
+    }
+
+    public PatchIndices get(int vertsPerSide) {
+        PatchIndices indices = patches.get(vertsPerSide);
+        if (indices == null) {
+            throw new IllegalStateException("No index buffer registered for " + vertsPerSide + " vertices per side");
+        }
+        return indices;
+    }
+
+    public int getBufferId() {
+        return eboId;
+    }
+
+    public int getIndexType() {
+        return indexType;
+    }
+
+    public void dispose() {
+        glDeleteBuffers(eboId);
+        patches.clear();
+    }
+
+    private static SharedIndexBuffer put(ByteBuffer buffer, int[] indices, boolean shortIndices) {
+        int firstIndex = buffer.position() / (shortIndices ? Short.BYTES : Integer.BYTES);
+        for (int index : indices) {
+            if (shortIndices) {
+                buffer.putShort((short) index);
+            } else {
+                buffer.putInt(index);
+            }
+        }
+        return new SharedIndexBuffer(firstIndex, indices.length);
+    }
+
+    private static int[] buildGroupIndices(int vertsPerSide, int group, int collapse) {
+        int last = vertsPerSide - 1;
+        int[] indices = new int[last * last * 6];
+        int[] triangle = new int[3];
+        int count = 0;
+        for (int z = 0; z < last; z++) {
+            for (int x = 0; x < last; x++) {
+                int topLeft = z * vertsPerSide + x;
+                int topRight = topLeft + 1;
+                int bottomLeft = topLeft + vertsPerSide;
+                int bottomRight = bottomLeft + 1;
+                boolean cornerDiagonal = (x == 0 && z == 0) || (x == last - 1 && z == last - 1);
+                for (int half = 0; half < 2; half++) {
+                    if (cornerDiagonal) {
+                        triangle[0] = topLeft;
+                        triangle[1] = half == 0 ? bottomLeft : bottomRight;
+                        triangle[2] = half == 0 ? bottomRight : topRight;
+                    } else {
+                        triangle[0] = half == 0 ? topLeft : topRight;
+                        triangle[1] = bottomLeft;
+                        triangle[2] = half == 0 ? topRight : bottomRight;
+                    }
+                    if (triangleGroup(triangle, vertsPerSide) != group) {
+                        continue;
+                    }
+                    int a = collapse(triangle[0], vertsPerSide, group, collapse);
+                    int b = collapse(triangle[1], vertsPerSide, group, collapse);
+                    int c = collapse(triangle[2], vertsPerSide, group, collapse);
+                    if (isDegenerate(a, b, c, vertsPerSide)) {
+                        continue;
+                    }
+                    indices[count++] = a;
+                    indices[count++] = b;
+                    indices[count++] = c;
+                }
+            }
+        }
+        return Arrays.copyOf(indices, count);
+    }
+
+    private static int triangleGroup(int[] triangle, int vertsPerSide) {
+        int group = INTERIOR;
+        for (int index : triangle) {
+            int edge = edgeOf(index, vertsPerSide);
+            if (edge == NO_EDGE || edge == group) {
+                continue;
+            }
+            if (group != INTERIOR) {
+                throw new IllegalStateException("Triangle touches two patch edges in a " + vertsPerSide + " grid");
+            }
+            group = edge;
+        }
+        return group;
+    }
+
+    private static int edgeOf(int index, int vertsPerSide) {
+        int last = vertsPerSide - 1;
+        int x = index % vertsPerSide;
+        int z = index / vertsPerSide;
+        boolean innerX = x > 0 && x < last;
+        boolean innerZ = z > 0 && z < last;
+        if (innerZ && x == 0) {
+            return EDGE_NEG_X;
+        }
+        if (innerZ && x == last) {
+            return EDGE_POS_X;
+        }
+        if (innerX && z == 0) {
+            return EDGE_NEG_Z;
+        }
+        if (innerX && z == last) {
+            return EDGE_POS_Z;
+        }
+        return NO_EDGE;
+    }
+
+    private static int collapse(int index, int vertsPerSide, int group, int collapse) {
+        if (group == INTERIOR || collapse == 0 || edgeOf(index, vertsPerSide) != group) {
+            return index;
+        }
+        int mask = ~((1 << collapse) - 1);
+        int x = index % vertsPerSide;
+        int z = index / vertsPerSide;
+        if (group == EDGE_NEG_X || group == EDGE_POS_X) {
+            z &= mask;
+        } else {
+            x &= mask;
+        }
+        return z * vertsPerSide + x;
+    }
+
+    private static boolean isDegenerate(int a, int b, int c, int vertsPerSide) {
+        int ax = a % vertsPerSide;
+        int az = a / vertsPerSide;
+        int cross = (b % vertsPerSide - ax) * (c / vertsPerSide - az) - (b / vertsPerSide - az) * (c % vertsPerSide - ax);
+        return cross == 0;
+    }
+
+    public record SharedIndexBuffer(int firstIndex, int indexCount) {
+    }
+
+    public static final class PatchIndices {
+        private final SharedIndexBuffer interior;
+        private final SharedIndexBuffer[][] edges;
+
+        private PatchIndices(SharedIndexBuffer interior, SharedIndexBuffer[][] edges) {
+            this.interior = interior;
+            this.edges = edges;
+        }
+
+        public SharedIndexBuffer interior() {
+            return interior;
+        }
+
+        public SharedIndexBuffer edge(int edge, int collapse) {
+            SharedIndexBuffer[] variants = edges[edge];
+            return variants[Math.min(collapse, variants.length - 1)];
+        }
+    }
+}
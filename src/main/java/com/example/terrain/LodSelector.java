@@ -0,0 +1,98 @@
+package com.example.terrain;
+
+public class LodSelector {
+    private final int chunkSize;
+    private final int[] bands;
+
+    public LodSelector(int chunkSize, int[] bands) {
+        if (bands.length == 0 || (chunkSize >> bands.length) < 2) {
+            throw new IllegalArgumentException("Chunk size " + chunkSize + " cannot hold " + bands.length + " LOD levels");
+        }
+        if (bands[0] < 1) {
+            throw new IllegalArgumentException("First LOD band must cover at least one chunk");
+        }
+        for (int i = 1; i < bands.length; i++) {
+            if (bands[i] < bands[i - 1] + 2) {
+                throw new IllegalArgumentException("LOD bands must be at least two chunks apart to leave room for geomorphing");
+            }
+        }
+        this.chunkSize = chunkSize;
+        this.bands = bands.clone();
+    }
+
+    public int getLevelCount() {
+        return bands.length;
+    }
+
+    public int getBand(int lod) {
+        return bands[lod];
+    }
+
+    public int selectLod(int dx, int dz) {
+        int distance = Math.max(Math.abs(dx), Math.abs(dz));
+        for (int lod = 0; lod < bands.length - 1; lod++) {
+            if (distance <= bands[lod]) {
+                return lod;
+            }
+        }
+        return bands.length - 1;
+    }
+
+    public static int stepForLod(int lod) {
+        return 1 << lod;
+    }
+
+    public int vertsPerSide(int lod) {
+        return chunkSize / stepForLod(lod) + 1;
+    }
+
+    public long residentVertexCount(int renderDistance) {
+        long vertices = 0;
+        for (int distance = 0; distance <= renderDistance; distance++) {
+            int ring = distance == 0 ? 1 : 8 * distance;
+            int side = vertsPerSide(selectLod(distance, 0));
+            vertices += (long) ring * side * side;
+        }
+        return vertices;
+    }
+
+    public float morphStart(int lod) {
+        if (lod >= bands.length - 1) {
+            return Float.MAX_VALUE;
+        }
+        float inner = lod == 0 ? 0.0f : (bands[lod - 1] + 1.0f) * chunkSize;
+        return Math.max(inner, morphEnd(lod) - chunkSize);
+    }
+
+    public float morphEnd(int lod) {
+        if (lod >= bands.length - 1) {
+            return Float.MAX_VALUE;
+        }
+        return (float) bands[lod] * chunkSize;
+    }
+
+    public float morphFactor(int lod, float centerX, float centerZ, float worldX, float worldZ) {
+        float distance = Math.max(Math.abs(worldX - centerX), Math.abs(worldZ - centerZ));
+        return morphFactor(distance, morphStart(lod), morphEnd(lod));
+    }
+
+    public static float morphFactor(float distance, float start, float end) {
+        float t = (distance - start) / Math.max(end - start, 1.0e-3f);
+        return Math.max(0.0f, Math.min(1.0f, t));
+    }
+
+    public static float morphTargetHeight(float[] heights, int vertsPerSide, int x, int z) {
+        boolean oddX = (x & 1) == 1;
+        boolean oddZ = (z & 1) == 1;
+        if (oddX && oddZ) {
+            return (heights[(z - 1) * vertsPerSide + x + 1] + heights[(z + 1) * vertsPerSide + x - 1]) * 0.5f;
+        }
+        if (oddX) {
+            return (heights[z * vertsPerSide + x - 1] + heights[z * vertsPerSide + x + 1]) * 0.5f;
+        }
+        if (oddZ) {
+            return (heights[(z - 1) * vertsPerSide + x] + heights[(z + 1) * vertsPerSide + x]) * 0.5f;
+        }
+        return heights[z * vertsPerSide + x];
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.terrain;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+
+public class LongObjectMap<V> {
+    private static final int MIN_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private final StampedLock lock = new StampedLock();
+    private final Iterable<V> valuesView = this::valueIterator;
+    private Table table;
+    private long[] denseKeys;
+    private Object[] denseValues;
+    private int size;
+    private int resizeAt;
+
+    public LongObjectMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongObjectMap(int expectedSize) {
+        int capacity = tableSizeFor(expectedSize);
+        table = new Table(capacity);
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+        denseKeys = new long[Math.max(expectedSize, 1)];
+        denseValues = new Object[Math.max(expectedSize, 1)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    public V get(long key) {
+        long stamp = lock.tryOptimisticRead();
+        V value = find(key);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                value = find(key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V valueAt(int index) {
+        return (V) denseValues[index];
+    }
+
+    public long keyAt(int index) {
+        return denseKeys[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("LongObjectMap does not store null values");
+        }
+        long stamp = lock.writeLock();
+        try {
+            int slot = findSlot(key);
+            if (slot >= 0) {
+                int index = table.indices[slot] - 1;
+                Object previous = denseValues[index];
+                denseValues[index] = value;
+                return (V) previous;
+            }
+            if (size == denseValues.length) {
+                denseKeys = Arrays.copyOf(denseKeys, size * 2);
+                denseValues = Arrays.copyOf(denseValues, size * 2);
+            }
+            denseKeys[size] = key;
+            denseValues[size] = value;
+            size++;
+            insert(table, key, size);
+            if (size > resizeAt) {
+                rehash(table.keys.length * 2);
+            }
+            return null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = findSlot(key);
+            if (slot < 0) {
+                return null;
+            }
+            int index = table.indices[slot] - 1;
+            Object value = denseValues[index];
+            removeSlot(slot);
+            int last = size - 1;
+            if (index != last) {
+                long movedKey = denseKeys[last];
+                denseKeys[index] = movedKey;
+                denseValues[index] = denseValues[last];
+                table.indices[findSlot(movedKey)] = index + 1;
+            }
+            denseValues[last] = null;
+            size = last;
+            return (V) value;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            Arrays.fill(table.indices, 0);
+            Arrays.fill(denseValues, 0, size, null);
+            size = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public Iterable<V> values() {
+        return valuesView;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V find(long key) {
+        Table current = table;
+        Object[] values = denseValues;
+        long[] keys = current.keys;
+        int[] indices = current.indices;
+        int mask = indices.length - 1;
+        int slot = slot(key, mask);
+        for (int probes = 0; probes <= mask; probes++) {
+            int index = indices[slot];
+            if (index == 0) {
+                return null;
+            }
+            if (keys[slot] == key) {
+                return index <= values.length ? (V) values[index - 1] : null;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    private int findSlot(long key) {
+        long[] keys = table.keys;
+        int[] indices = table.indices;
+        int mask = indices.length - 1;
+        int slot = slot(key, mask);
+        while (indices[slot] != 0) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void removeSlot(int slot) {
+        long[] keys = table.keys;
+        int[] indices = table.indices;
+        int mask = indices.length - 1;
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (indices[next] != 0) {
+            int home = slot(keys[next], mask);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                indices[gap] = indices[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        indices[gap] = 0;
+    }
+
+    private void rehash(int capacity) {
+        Table resized = new Table(capacity);
+        for (int i = 0; i < size; i++) {
+            insert(resized, denseKeys[i], i + 1);
+        }
+        table = resized;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private Iterator<V> valueIterator() {
+        return new Iterator<>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public V next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                return valueAt(index++);
+            }
+        };
+    }
+
+    private static void insert(Table table, long key, int denseIndex) {
+        int mask = table.indices.length - 1;
+        int slot = slot(key, mask);
+        while (table.indices[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table.keys[slot] = key;
+        table.indices[slot] = denseIndex;
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9e3779b97f4a7c15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int needed = (int) Math.ceil(Math.max(expectedSize, 1) / LOAD_FACTOR);
+        return Math.max(MIN_CAPACITY, Integer.highestOneBit(needed - 1) << 1);
+    }
+
+    private static final class Table {
+        private final long[] keys;
+        private final int[] indices;
+
+        private Table(int capacity) {
+            keys = new long[capacity];
+            indices = new int[capacity];
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.terrain;
 
 public class Noise2D {
+    private static final FbmRowKernel VECTOR_KERNEL = loadVectorKernel();
+
     private final int seed;
 
     public Noise2D(int seed) {
@@ -21,6 +23,148 @@ public class Noise2D {
         return sum / max;
     }
 
+    public void fbmRow(float[] xs, int count, float z, int octaves, float lacunarity, float gain, float[] out) {
+        if (VECTOR_KERNEL != null) {
+            VECTOR_KERNEL.fbmRow(seed, xs, count, z, octaves, lacunarity, gain, out);
+        } else {
+            fbmRowScalar(xs, count, z, octaves, lacunarity, gain, out);
+        }
+    }
+
+    public static boolean isVectorized() {
+        return VECTOR_KERNEL != null;
+    }
+
+    void fbmRowScalar(float[] xs, int count, float z, int octaves, float lacunarity, float gain, float[] out) {
+        for (int i = 0; i < count; i++) {
+            out[i] = 0.0f;
+        }
+        float amplitude = 1.0f;
+        float frequency = 1.0f;
+        float max = 0.0f;
+        for (int octave = 0; octave < octaves; octave++) {
+            float fz = z * frequency;
+            int z0 = fastFloor(fz);
+            int z1 = z0 + 1;
+            float sz = fade(fz - z0);
+            float dz0 = fz - z0;
+            float dz1 = fz - z1;
+
+            int cellX = Integer.MIN_VALUE;
+            int h00 = 0;
+            int h10 = 0;
+            int h01 = 0;
+            int h11 = 0;
+            for (int i = 0; i < count; i++) {
+                float fx = xs[i] * frequency;
+                int x0 = fastFloor(fx);
+                int x1 = x0 + 1;
+                if (x0 != cellX) {
+                    cellX = x0;
+                    h00 = hash(x0, z0) & 3;
+                    h10 = hash(x1, z0) & 3;
+                    h01 = hash(x0, z1) & 3;
+                    h11 = hash(x1, z1) & 3;
+                }
+                float sx = fade(fx - x0);
+                float dx0 = fx - x0;
+                float dx1 = fx - x1;
+
+                float n00 = grad(h00, dx0, dz0);
+                float n10 = grad(h10, dx1, dz0);
+                float n01 = grad(h01, dx0, dz1);
+                float n11 = grad(h11, dx1, dz1);
+
+                float ix0 = lerp(n00, n10, sx);
+                float ix1 = lerp(n01, n11, sx);
+                out[i] += amplitude * lerp(ix0, ix1, sz);
+            }
+            max += amplitude;
+            amplitude *= gain;
+            frequency *= lacunarity;
+        }
+        for (int i = 0; i < count; i++) {
+            out[i] = out[i] / max;
+        }
+    }
+
+    public void fbmRowDerivatives(float[] xs, int count, float z, int octaves, float lacunarity, float gain, float[] out,
+                                  float[] outDx, float[] outDz) {
+        if (VECTOR_KERNEL != null) {
+            VECTOR_KERNEL.fbmRowDerivatives(seed, xs, count, z, octaves, lacunarity, gain, out, outDx, outDz);
+        } else {
+            fbmRowDerivativesScalar(xs, count, z, octaves, lacunarity, gain, out, outDx, outDz);
+        }
+    }
+
+    void fbmRowDerivativesScalar(float[] xs, int count, float z, int octaves, float lacunarity, float gain, float[] out,
+                                 float[] outDx, float[] outDz) {
+        for (int i = 0; i < count; i++) {
+            out[i] = 0.0f;
+            outDx[i] = 0.0f;
+            outDz[i] = 0.0f;
+        }
+        float amplitude = 1.0f;
+        float frequency = 1.0f;
+        float max = 0.0f;
+        for (int octave = 0; octave < octaves; octave++) {
+            float fz = z * frequency;
+            int z0 = fastFloor(fz);
+            int z1 = z0 + 1;
+            float dz0 = fz - z0;
+            float dz1 = fz - z1;
+            float sz = fade(dz0);
+            float dsz = fadeDerivative(dz0);
+            float slopeScale = amplitude * frequency;
+
+            int cellX = Integer.MIN_VALUE;
+            int h00 = 0;
+            int h10 = 0;
+            int h01 = 0;
+            int h11 = 0;
+            for (int i = 0; i < count; i++) {
+                float fx = xs[i] * frequency;
+                int x0 = fastFloor(fx);
+                int x1 = x0 + 1;
+                if (x0 != cellX) {
+                    cellX = x0;
+                    h00 = hash(x0, z0) & 3;
+                    h10 = hash(x1, z0) & 3;
+                    h01 = hash(x0, z1) & 3;
+                    h11 = hash(x1, z1) & 3;
+                }
+                float dx0 = fx - x0;
+                float dx1 = fx - x1;
+                float sx = fade(dx0);
+                float dsx = fadeDerivative(dx0);
+
+                float n00 = grad(h00, dx0, dz0);
+                float n10 = grad(h10, dx1, dz0);
+                float n01 = grad(h01, dx0, dz1);
+                float n11 = grad(h11, dx1, dz1);
+
+                float ix0 = lerp(n00, n10, sx);
+                float ix1 = lerp(n01, n11, sx);
+                float ix0Dx = lerp(gradX(h00), gradX(h10), sx) + dsx * (n10 - n00);
+                float ix1Dx = lerp(gradX(h01), gradX(h11), sx) + dsx * (n11 - n01);
+                float ix0Dz = lerp(gradZ(h00), gradZ(h10), sx);
+                float ix1Dz = lerp(gradZ(h01), gradZ(h11), sx);
+
+                out[i] += amplitude * lerp(ix0, ix1, sz);
+                outDx[i] += slopeScale * lerp(ix0Dx, ix1Dx, sz);
+                outDz[i] += slopeScale * (lerp(ix0Dz, ix1Dz, sz) + dsz * (ix1 - ix0));
+            }
+            max += amplitude;
+            amplitude *= gain;
+            frequency *= lacunarity;
+        }
+        for (int i = 0; i < count; i++) {
+            out[i] = out[i] / max;
+            outDx[i] = outDx[i] / max;
+            outDz[i] = outDz[i] / max;
+        }
+    }
+
     private float perlin(float x, float z) {
         int x0 = fastFloor(x);
         int z0 = fastFloor(z);
@@ -41,13 +185,23 @@ public class Noise2D {
     }
 
     private float gradDot(int gx, int gz, float dx, float dz) {
-        int hash = hash(gx, gz);
-        int h = hash & 3;
+        return grad(hash(gx, gz) & 3, dx, dz);
+    }
+
+    private float grad(int h, float dx, float dz) {
         float gradX = (h == 0 || h == 3) ? 1.0f : -1.0f;
         float gradZ = (h == 0 || h == 1) ? 1.0f : -1.0f;
         return gradX * dx + gradZ * dz;
     }
 
+    private float gradX(int h) {
+        return (h == 0 || h == 3) ? 1.0f : -1.0f;
+    }
+
+    private float gradZ(int h) {
+        return (h == 0 || h == 1) ? 1.0f : -1.0f;
+    }
+
     private int hash(int x, int z) {
         int h = seed;
         h ^= x * 0x27d4eb2d;
@@ -58,6 +212,20 @@ public class Noise2D {
         return h;
     }
 
+    private static FbmRowKernel loadVectorKernel() {
+        if (!Boolean.parseBoolean(System.getProperty("terrain.noise.vector", "true"))) {
+            return null;
+        }
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            return (FbmRowKernel) Class.forName("com.example.terrain.VectorNoise2D").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
     private int fastFloor(float value) {
         int i = (int) value;
         return value < i ? i - 1 : i;
@@ -67,6 +235,10 @@ public class Noise2D {
         return t * t * t * (t * (t * 6 - 15) + 10);
     }
 
+    private float fadeDerivative(float t) {
+        return 30.0f * t * t * (t * (t - 2.0f) + 1.0f);
+    }
+
     private float lerp(float a, float b, float t) {
         return a + t * (b - a);
     }
@@ -0,0 +1,97 @@
+package com.example.terrain;
+
+public class QuadNode implements TerrainPatch {
+    private final long key;
+    private final int level;
+    private final int nodeX;
+    private final int nodeZ;
+    private final int size;
+    private ChunkMesh mesh;
+    private float minY;
+    private float maxY;
+
+    public QuadNode(long key, int level, int nodeX, int nodeZ, int size) {
+        this.key = key;
+        this.level = level;
+        this.nodeX = nodeX;
+        this.nodeZ = nodeZ;
+        this.size = size;
+    }
+
+    public long getKey() {
+        return key;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getNodeX() {
+        return nodeX;
+    }
+
+    public int getNodeZ() {
+        return nodeZ;
+    }
+
+    @Override
+    public int getOriginX() {
+        return nodeX * size;
+    }
+
+    @Override
+    public int getOriginZ() {
+        return nodeZ * size;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public int getLod() {
+        return level;
+    }
+
+    @Override
+    public float getMinY() {
+        return minY;
+    }
+
+    @Override
+    public float getMaxY() {
+        return maxY;
+    }
+
+    @Override
+    public ChunkMesh getMesh() {
+        return mesh;
+    }
+
+    public void setMesh(ChunkMesh mesh) {
+        if (this.mesh != null) {
+            this.mesh.dispose();
+        }
+        this.mesh = mesh;
+        this.minY = mesh.getMinY();
+        this.maxY = mesh.getMaxY();
+    }
+
+    public ChunkMesh detachMesh() {
+        ChunkMesh detached = mesh;
+        mesh = null;
+        return detached;
+    }
+
+    public boolean overlaps(QuadNode other) {
+        return getOriginX() < other.getOriginX() + other.size && other.getOriginX() < getOriginX() + size
+                && getOriginZ() < other.getOriginZ() + other.size && other.getOriginZ() < getOriginZ() + size;
+    }
+
+    public void dispose() {
+        if (mesh != null) {
+            mesh.dispose();
+        }
+    }
+}
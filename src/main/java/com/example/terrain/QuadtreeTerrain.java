@@ -0,0 +1,353 @@
+package com.example.terrain;
+
+import org.joml.Vector3f;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class QuadtreeTerrain implements TerrainSource {
+    private static final int NODE_CELLS = 32;
+    private static final int MAX_LEVEL = 7;
+    private static final int ROOT_RADIUS = 1;
+    private static final float SPLIT_DISTANCE = 1.5f;
+    private static final float SPLIT_QUANTUM = NODE_CELLS * 0.5f;
+    private static final long RESIDENT_BYTES = maxResidentNodes() * (NODE_CELLS + 1) * (NODE_CELLS + 1) * TerrainVertexFormat.STRIDE;
+
+    private final LongObjectMap<QuadNode> nodes = new LongObjectMap<>();
+    private final LongObjectMap<QuadNode> leafIndex = new LongObjectMap<>();
+    private final LongObjectMap<QuadNode> visibleIndex = new LongObjectMap<>();
+    private final LongObjectMap<QuadNode> retiringAncestors = new LongObjectMap<>();
+    private final List<QuadNode> leaves = new ArrayList<>();
+    private final List<QuadNode> previousLeaves = new ArrayList<>();
+    private final List<QuadNode> retiring = new ArrayList<>();
+    private final List<QuadNode> visible = new ArrayList<>();
+    private final TerrainMeshStore.MeshTarget meshTarget = new TerrainMeshStore.MeshTarget() {
+        @Override
+        public boolean accepts(long key, ChunkMeshData data) {
+            QuadNode node = nodes.get(key);
+            return node != null && node.getMesh() == null;
+        }
+
+        @Override
+        public void install(long key, ChunkMesh mesh) {
+            nodes.get(key).setMesh(mesh);
+        }
+    };
+    private final TerrainMeshStore<Long> meshStore;
+    private final BuildScheduler scheduler;
+    private final ChunkMeshBuilder meshBuilder;
+    private int cameraCellX;
+    private int cameraCellZ;
+    private int rootX;
+    private int rootZ;
+    private boolean placed;
+    private float viewCenterX;
+    private float viewCenterZ;
+
+    public QuadtreeTerrain(TerrainGenerator generator, GenerationExecutor executor, UploadBudget uploadBudget) {
+        this.meshStore = new TerrainMeshStore<>("quadtree", executor, uploadBudget, NODE_CELLS, RESIDENT_BYTES, meshTarget,
+                NODE_CELLS + 1);
+        this.scheduler = meshStore.getScheduler();
+        this.meshBuilder = new ChunkMeshBuilder(generator, NODE_CELLS, meshStore.getUploadRing());
+    }
+
+    @Override
+    public void update(Vector3f cameraPosition, Vector3f cameraForward) {
+        scheduler.updateView(cameraPosition.x, cameraPosition.z, cameraForward.x, cameraForward.z);
+        viewCenterX = cameraPosition.x;
+        viewCenterZ = cameraPosition.z;
+
+        int cellX = (int) Math.floor(cameraPosition.x / NODE_CELLS);
+        int cellZ = (int) Math.floor(cameraPosition.z / NODE_CELLS);
+        boolean changed = false;
+        if (!placed || cellX != cameraCellX || cellZ != cameraCellZ) {
+            placed = true;
+            cameraCellX = cellX;
+            cameraCellZ = cellZ;
+            rebuildLeaves();
+            changed = true;
+        }
+        if (meshStore.drain(cellX, cellZ) > 0) {
+            changed = true;
+        }
+        if (changed) {
+            retireReplaced();
+            updateVisible();
+            updateStitching();
+        }
+    }
+
+    @Override
+    public int getPatchCount() {
+        return visible.size();
+    }
+
+    @Override
+    public TerrainPatch getPatch(int index) {
+        return visible.get(index);
+    }
+
+    public int getNodeCount() {
+        return nodes.size();
+    }
+
+    @Override
+    public float getViewRange() {
+        return ROOT_RADIUS * (float) (NODE_CELLS << MAX_LEVEL);
+    }
+
+    @Override
+    public float getViewCenterX() {
+        return viewCenterX;
+    }
+
+    @Override
+    public float getViewCenterZ() {
+        return viewCenterZ;
+    }
+
+    @Override
+    public float getMorphStart(int lod) {
+        if (lod >= MAX_LEVEL) {
+            return Float.MAX_VALUE;
+        }
+        return (SPLIT_DISTANCE + 1.0f) * (NODE_CELLS << lod) - SPLIT_QUANTUM;
+    }
+
+    @Override
+    public float getMorphEnd(int lod) {
+        if (lod >= MAX_LEVEL) {
+            return Float.MAX_VALUE;
+        }
+        return 2.0f * SPLIT_DISTANCE * (NODE_CELLS << lod) - SPLIT_QUANTUM;
+    }
+
+    @Override
+    public ByteSizeLruCache.Stats getMeshCacheStats() {
+        return meshStore.getCacheStats();
+    }
+
+    @Override
+    public TerrainVertexArena getVertexArena() {
+        return meshStore.getArena();
+    }
+
+    @Override
+    public void shutdown() {
+        meshStore.clear();
+        for (QuadNode node : nodes.values()) {
+            node.dispose();
+        }
+        nodes.clear();
+        leafIndex.clear();
+        visibleIndex.clear();
+        leaves.clear();
+        retiring.clear();
+        visible.clear();
+        placed = false;
+        meshStore.dispose();
+    }
+
+    private void rebuildLeaves() {
+        int rootSize = NODE_CELLS << MAX_LEVEL;
+        float centerX = (cameraCellX + 0.5f) * NODE_CELLS;
+        float centerZ = (cameraCellZ + 0.5f) * NODE_CELLS;
+        rootX = Math.floorDiv(cameraCellX * NODE_CELLS, rootSize);
+        rootZ = Math.floorDiv(cameraCellZ * NODE_CELLS, rootSize);
+        previousLeaves.clear();
+        previousLeaves.addAll(leaves);
+        leaves.clear();
+        leafIndex.clear();
+        for (int dz = -ROOT_RADIUS; dz <= ROOT_RADIUS; dz++) {
+            for (int dx = -ROOT_RADIUS; dx <= ROOT_RADIUS; dx++) {
+                collectLeaves(MAX_LEVEL, rootX + dx, rootZ + dz, centerX, centerZ);
+            }
+        }
+        for (QuadNode node : previousLeaves) {
+            if (leafIndex.containsKey(node.getKey())) {
+                continue;
+            }
+            if (node.getMesh() != null) {
+                retiring.add(node);
+            } else {
+                removeNode(node);
+            }
+        }
+        previousLeaves.clear();
+    }
+
+    private void collectLeaves(int level, int nodeX, int nodeZ, float centerX, float centerZ) {
+        int size = NODE_CELLS << level;
+        if (level > 0 && distanceToNode(nodeX * size, nodeZ * size, size, centerX, centerZ) < SPLIT_DISTANCE * size) {
+            for (int child = 0; child < 4; child++) {
+                collectLeaves(level - 1, nodeX * 2 + (child & 1), nodeZ * 2 + (child >> 1), centerX, centerZ);
+            }
+            return;
+        }
+        long key = nodeKey(level, nodeX, nodeZ);
+        QuadNode node = nodes.get(key);
+        if (node == null) {
+            node = new QuadNode(key, level, nodeX, nodeZ, size);
+            nodes.put(key, node);
+            requestMesh(node);
+        }
+        leafIndex.put(key, node);
+        leaves.add(node);
+    }
+
+    private void retireReplaced() {
+        for (int i = retiring.size() - 1; i >= 0; i--) {
+            QuadNode node = retiring.get(i);
+            boolean leafAgain = leafIndex.containsKey(node.getKey());
+            if (!leafAgain && !isCovered(node)) {
+                continue;
+            }
+            int last = retiring.size() - 1;
+            retiring.set(i, retiring.get(last));
+            retiring.remove(last);
+            if (!leafAgain) {
+                removeNode(node);
+            }
+        }
+    }
+
+    private boolean isCovered(QuadNode node) {
+        int level = node.getLevel();
+        int nodeX = node.getNodeX();
+        int nodeZ = node.getNodeZ();
+        for (int ancestor = level + 1; ancestor <= MAX_LEVEL; ancestor++) {
+            QuadNode leaf = leafIndex.get(nodeKey(ancestor, nodeX >> (ancestor - level), nodeZ >> (ancestor - level)));
+            if (leaf != null) {
+                return leaf.getMesh() != null;
+            }
+        }
+        int shift = MAX_LEVEL - level;
+        if (Math.abs((nodeX >> shift) - rootX) > ROOT_RADIUS || Math.abs((nodeZ >> shift) - rootZ) > ROOT_RADIUS) {
+            return true;
+        }
+        return descendantsCovered(level, nodeX, nodeZ);
+    }
+
+    private boolean descendantsCovered(int level, int nodeX, int nodeZ) {
+        QuadNode leaf = leafIndex.get(nodeKey(level, nodeX, nodeZ));
+        if (leaf != null) {
+            return leaf.getMesh() != null;
+        }
+        if (level == 0) {
+            return true;
+        }
+        for (int child = 0; child < 4; child++) {
+            if (!descendantsCovered(level - 1, nodeX * 2 + (child & 1), nodeZ * 2 + (child >> 1))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void removeNode(QuadNode node) {
+        nodes.remove(node.getKey());
+        scheduler.cancel(node.getKey());
+        retainMesh(node);
+        node.dispose();
+    }
+
+    private void updateVisible() {
+        visible.clear();
+        visibleIndex.clear();
+        retiringAncestors.clear();
+        for (QuadNode node : retiring) {
+            showNode(node);
+            for (int ancestor = node.getLevel() + 1; ancestor <= MAX_LEVEL; ancestor++) {
+                int shift = ancestor - node.getLevel();
+                retiringAncestors.put(nodeKey(ancestor, node.getNodeX() >> shift, node.getNodeZ() >> shift), node);
+            }
+        }
+        for (QuadNode leaf : leaves) {
+            if (leaf.getMesh() != null && !overlapsRetiring(leaf)) {
+                showNode(leaf);
+            }
+        }
+    }
+
+    private void showNode(QuadNode node) {
+        visible.add(node);
+        visibleIndex.put(node.getKey(), node);
+    }
+
+    private boolean overlapsRetiring(QuadNode leaf) {
+        if (retiring.isEmpty()) {
+            return false;
+        }
+        if (retiringAncestors.containsKey(leaf.getKey())) {
+            return true;
+        }
+        int level = leaf.getLevel();
+        for (int ancestor = level + 1; ancestor <= MAX_LEVEL; ancestor++) {
+            int shift = ancestor - level;
+            if (nodes.containsKey(nodeKey(ancestor, leaf.getNodeX() >> shift, leaf.getNodeZ() >> shift))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void updateStitching() {
+        for (QuadNode node : visible) {
+            int originX = node.getOriginX();
+            int originZ = node.getOriginZ();
+            int size = node.getSize();
+            int half = size / 2;
+            TerrainMeshStore.stitch(node.getMesh(), node.getLevel(),
+                    visibleLevelAt(originX - 1, originZ + half), visibleLevelAt(originX + size, originZ + half),
+                    visibleLevelAt(originX + half, originZ - 1), visibleLevelAt(originX + half, originZ + size));
+        }
+    }
+
+    private int visibleLevelAt(int worldX, int worldZ) {
+        for (int level = 0; level <= MAX_LEVEL; level++) {
+            int size = NODE_CELLS << level;
+            if (visibleIndex.containsKey(nodeKey(level, Math.floorDiv(worldX, size), Math.floorDiv(worldZ, size)))) {
+                return level;
+            }
+        }
+        return -1;
+    }
+
+    private void requestMesh(QuadNode node) {
+        ChunkMesh cached = meshStore.takeCached(node.getKey());
+        if (cached != null) {
+            node.setMesh(cached);
+            return;
+        }
+        int chunkX = node.getNodeX() << node.getLevel();
+        int chunkZ = node.getNodeZ() << node.getLevel();
+        long key = node.getKey();
+        int level = node.getLevel();
+        int originX = node.getOriginX();
+        int originZ = node.getOriginZ();
+        scheduler.submit(key, chunkX, chunkZ, 1 << level, level, () -> {
+            ChunkHeightfield heightfield = meshBuilder.sampleHeightfield(originX, originZ, 1 << level, NODE_CELLS, level);
+            meshStore.offer(chunkX, chunkZ, key, meshBuilder.build(chunkX, chunkZ, heightfield));
+        });
+    }
+
+    private void retainMesh(QuadNode node) {
+        meshStore.retain(node.getKey(), node.detachMesh());
+    }
+
+    private static long maxResidentNodes() {
+        int span = 2 * (int) Math.ceil(2.0f * SPLIT_DISTANCE + 2.0f) + 2;
+        int roots = 2 * ROOT_RADIUS + 1;
+        return (long) MAX_LEVEL * span * span + roots * roots;
+    }
+
+    private static float distanceToNode(int originX, int originZ, int size, float x, float z) {
+        float dx = Math.max(Math.max(originX - x, x - (originX + size)), 0.0f);
+        float dz = Math.max(Math.max(originZ - z, z - (originZ + size)), 0.0f);
+        return Math.max(dx, dz);
+    }
+
+    private static long nodeKey(int level, int nodeX, int nodeZ) {
+        return ((long) level << 56) | ((nodeX & 0xfffffffL) << 28) | (nodeZ & 0xfffffffL);
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.terrain;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+public class RingAllocator {
+    private final long capacity;
+    private final long alignment;
+    private final ArrayDeque<Block> blocks = new ArrayDeque<>();
+    private long head;
+    private long usedBytes;
+
+    public RingAllocator(long capacity, int alignment) {
+        if (capacity <= 0 || alignment <= 0 || Integer.bitCount(alignment) != 1) {
+            throw new IllegalArgumentException("Invalid ring capacity " + capacity + " or alignment " + alignment);
+        }
+        this.capacity = capacity;
+        this.alignment = alignment;
+    }
+
+    public synchronized long allocate(long size) {
+        long aligned = (size + alignment - 1) & -alignment;
+        if (size <= 0 || aligned > capacity) {
+            return -1;
+        }
+        long offset;
+        if (blocks.isEmpty()) {
+            offset = 0;
+        } else {
+            long tail = blocks.peekFirst().offset;
+            if (head > tail) {
+                if (capacity - head >= aligned) {
+                    offset = head;
+                } else if (tail >= aligned) {
+                    if (head < capacity) {
+                        Block padding = new Block(head, capacity - head);
+                        padding.state = State.FREE;
+                        blocks.addLast(padding);
+                    }
+                    offset = 0;
+                } else {
+                    return -1;
+                }
+            } else if (tail - head >= aligned) {
+                offset = head;
+            } else {
+                return -1;
+            }
+        }
+        blocks.addLast(new Block(offset, aligned));
+        head = offset + aligned;
+        usedBytes += aligned;
+        return offset;
+    }
+
+    public synchronized void free(long offset) {
+        Block block = find(offset);
+        if (block != null) {
+            release(block);
+            trimTail();
+        }
+    }
+
+    public synchronized void retire(long offset, long fence) {
+        Block block = find(offset);
+        if (block != null) {
+            block.state = State.RETIRED;
+            block.fence = fence;
+        }
+    }
+
+    public synchronized void reclaim(long completedFence) {
+        for (Block block : blocks) {
+            if (block.state == State.RETIRED && block.fence <= completedFence) {
+                release(block);
+            }
+        }
+        trimTail();
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    private Block find(long offset) {
+        Iterator<Block> iterator = blocks.descendingIterator();
+        while (iterator.hasNext()) {
+            Block block = iterator.next();
+            if (block.offset == offset && block.state != State.FREE) {
+                return block;
+            }
+        }
+        return null;
+    }
+
+    private void release(Block block) {
+        block.state = State.FREE;
+        usedBytes -= block.size;
+    }
+
+    private void trimTail() {
+        while (!blocks.isEmpty() && blocks.peekFirst().state == State.FREE) {
+            blocks.removeFirst();
+        }
+        if (blocks.isEmpty()) {
+            head = 0;
+        }
+    }
+
+    private enum State {
+        LIVE,
+        RETIRED,
+        FREE
+    }
+
+    private static final class Block {
+        private final long offset;
+        private final long size;
+        private State state = State.LIVE;
+        private long fence;
+
+        private Block(long offset, long size) {
+            this.offset = offset;
+            this.size = size;
+        }
+    }
+}
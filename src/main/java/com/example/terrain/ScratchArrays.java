@@ -0,0 +1,56 @@
+package com.example.terrain;
+
+final class ScratchArrays {
+    private static final ThreadLocal<ScratchArrays> LOCAL = ThreadLocal.withInitial(ScratchArrays::new);
+
+    private final float[][] floats = new float[Slot.values().length][];
+    private final int[][] ints = new int[Slot.values().length][];
+    private final short[][] shorts = new short[Slot.values().length][];
+
+    private ScratchArrays() {
+    }
+
+    static float[] floats(Slot slot, int length) {
+        ScratchArrays scratch = LOCAL.get();
+        float[] array = scratch.floats[slot.ordinal()];
+        if (array == null || array.length < length) {
+            array = new float[length];
+            scratch.floats[slot.ordinal()] = array;
+        }
+        return array;
+    }
+
+    static int[] ints(Slot slot, int length) {
+        ScratchArrays scratch = LOCAL.get();
+        int[] array = scratch.ints[slot.ordinal()];
+        if (array == null || array.length < length) {
+            array = new int[length];
+            scratch.ints[slot.ordinal()] = array;
+        }
+        return array;
+    }
+
+    static short[] shorts(Slot slot, int length) {
+        ScratchArrays scratch = LOCAL.get();
+        short[] array = scratch.shorts[slot.ordinal()];
+        if (array == null || array.length < length) {
+            array = new short[length];
+            scratch.shorts[slot.ordinal()] = array;
+        }
+        return array;
+    }
+
+    enum Slot {
+        NOISE_COORDS,
+        NOISE_ROW,
+        NOISE_DX,
+        NOISE_DZ,
+        NOISE_LATTICE,
+        BIOME_WEIGHTS,
+        WEIGHT_SLOPES,
+        LATTICE_X,
+        LATTICE_Z,
+        LATTICE_BIOME,
+        CACHE_ENTRY
+    }
+}
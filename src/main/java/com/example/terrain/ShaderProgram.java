@@ -94,6 +94,11 @@ public class ShaderProgram {
         }
     }
 
+    public void setVector2f(String name, float x, float y) {
+        int location = glGetUniformLocation(programId, name);
+        glUniform2f(location, x, y);
+    }
+
     public void setVector3f(String name, Vector3f value) {
         int location = glGetUniformLocation(programId, name);
         glUniform3f(location, value.x, value.y, value.z);
@@ -5,6 +5,8 @@ import org.joml.Vector3f;
 import org.lwjgl.glfw.GLFWErrorCallback;
 import org.lwjgl.opengl.GL;
 
+import java.nio.file.Path;
+
 import static org.lwjgl.glfw.GLFW.*;
 import static org.lwjgl.opengl.GL46.*;
 import static org.lwjgl.system.MemoryUtil.NULL;
@@ -13,17 +15,28 @@ public class TerrainApp {
     private static final int WIDTH = 1280;
     private static final int HEIGHT = 720;
     private static final int CHUNK_SIZE = 64;
-    private static final int RENDER_DISTANCE = 4;
+    private static final int RENDER_DISTANCE = 16;
+    private static final float MAX_SHADOW_DISTANCE = 500.0f;
     private static final int FEATURE_DISTANCE = 3;
+    private static final long HEIGHT_TILE_CACHE_BYTES = 16L * 1024 * 1024;
     private static final int SHADOW_MAP_SIZE = 2048;
     private static final int CASCADE_COUNT = 3;
+    private static final long UPLOAD_BUDGET_BYTES = 4L * 1024 * 1024;
+    private static final long UPLOAD_BUDGET_MICROS = 2000;
+    private static final int INITIAL_DRAW_CAPACITY = 1024;
+    private static final String WINDOW_TITLE = "AI Terrain Generator - Increment 6";
 
     private long window;
     private Camera camera;
     private ShaderProgram shader;
-    private ChunkManager chunkManager;
+    private GenerationExecutor generationExecutor;
+    private UploadBudget uploadBudget;
+    private ChunkDiskCache chunkDiskCache;
+    private TerrainSource terrain;
     private FeatureManager featureManager;
     private FrustumCuller frustumCuller;
+    private TerrainDrawList terrainDraws;
+    private TerrainDrawList shadowDraws;
     private TextureArray terrainTextures;
     private ShadowMap shadowMap;
     private ShaderProgram shadowShader;
@@ -31,6 +44,7 @@ public class TerrainApp {
     private final Matrix4f[] cascadeMatrices = new Matrix4f[CASCADE_COUNT];
     private final float[] cascadeSplits = new float[CASCADE_COUNT];
     private double lastTime;
+    private double lastStatsTime;
 
     public void run() {
         init();
@@ -50,7 +64,7 @@ public class TerrainApp {
         glfwWindowHint(GLFW_OPENGL_FORWARD_COMPAT, GLFW_TRUE);
         glfwWindowHint(GLFW_RESIZABLE, GLFW_TRUE);
 
-        window = glfwCreateWindow(WIDTH, HEIGHT, "AI Terrain Generator - Increment 6", NULL, NULL);
+        window = glfwCreateWindow(WIDTH, HEIGHT, WINDOW_TITLE, NULL, NULL);
         if (window == NULL) {
             throw new IllegalStateException("Failed to create GLFW window");
         }
@@ -72,9 +86,22 @@ public class TerrainApp {
         shadowShader = new ShaderProgram("shaders/shadow.vert", "shaders/shadow.frag");
         featureShader = new ShaderProgram("shaders/feature.vert", "shaders/feature.frag");
         TerrainGenerator generator = new TerrainGenerator(1337);
-        chunkManager = new ChunkManager(generator, CHUNK_SIZE, RENDER_DISTANCE);
-        featureManager = new FeatureManager(generator, CHUNK_SIZE, FEATURE_DISTANCE, 1337);
+        generationExecutor = new GenerationExecutor(GenerationExecutor.defaultParallelism());
+        uploadBudget = new UploadBudget(UPLOAD_BUDGET_BYTES, UPLOAD_BUDGET_MICROS);
+        HeightTileCache heightTiles = new HeightTileCache(generator, CHUNK_SIZE, HEIGHT_TILE_CACHE_BYTES);
+        TerrainMode mode = TerrainMode.fromProperty(System.getProperty("terrain.mode"));
+        if (mode == TerrainMode.QUADTREE) {
+            terrain = new QuadtreeTerrain(generator, generationExecutor, uploadBudget);
+        } else {
+            String cacheDir = System.getProperty("terrain.cacheDir");
+            chunkDiskCache = cacheDir != null ? new ChunkDiskCache(Path.of(cacheDir), generator, CHUNK_SIZE) : null;
+            terrain = new ChunkManager(generator, CHUNK_SIZE, RENDER_DISTANCE, generationExecutor, uploadBudget, chunkDiskCache, heightTiles);
+        }
+        camera.setFarPlane(terrain.getViewRange() + CHUNK_SIZE);
+        featureManager = new FeatureManager(heightTiles, CHUNK_SIZE, FEATURE_DISTANCE, 1337, generationExecutor, uploadBudget);
         frustumCuller = new FrustumCuller();
+        terrainDraws = new TerrainDrawList(INITIAL_DRAW_CAPACITY);
+        shadowDraws = new TerrainDrawList(INITIAL_DRAW_CAPACITY);
         terrainTextures = TextureArray.createDefault();
         shadowMap = new ShadowMap(SHADOW_MAP_SIZE, CASCADE_COUNT);
         for (int i = 0; i < CASCADE_COUNT; i++) {
@@ -95,8 +122,16 @@ public class TerrainApp {
             }
 
             Input.update(window, deltaTime, camera);
-            chunkManager.update(camera.getPosition());
-            featureManager.update(camera.getPosition());
+            uploadBudget.beginFrame();
+            terrain.update(camera.getPosition(), camera.getFront());
+            featureManager.update(camera.getPosition(), camera.getFront());
+            updateStatsTitle(current);
+
+            Matrix4f projection = camera.getProjectionMatrix(getAspectRatio());
+            Matrix4f view = camera.getViewMatrix();
+            Matrix4f projectionView = new Matrix4f(projection).mul(view);
+            frustumCuller.update(projectionView);
+            buildDrawLists();
 
             updateCascades();
             renderShadowPass();
@@ -104,9 +139,6 @@ public class TerrainApp {
             glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
 
             shader.bind();
-            Matrix4f projection = camera.getProjectionMatrix(getAspectRatio());
-            Matrix4f view = camera.getViewMatrix();
-            Matrix4f projectionView = new Matrix4f(projection).mul(view);
             shader.setMatrix4f("uProjection", projection);
             shader.setMatrix4f("uView", view);
             shader.setMatrix4fArray("uLightViewProj", cascadeMatrices);
@@ -115,11 +147,12 @@ public class TerrainApp {
             shader.setVector3f("uBaseColor", new Vector3f(0.2f, 0.7f, 0.25f));
             shader.setVector3f("uCameraPos", camera.getPosition());
             shader.setVector3f("uFogColor", new Vector3f(0.7f, 0.8f, 0.9f));
-            shader.setFloat("uFogStart", 80.0f);
-            shader.setFloat("uFogEnd", 200.0f);
+            shader.setFloat("uFogStart", terrain.getViewRange() * 0.3f);
+            shader.setFloat("uFogEnd", terrain.getViewRange() * 0.8f);
             shader.setFloat("uShadowBias", 0.0015f);
             shader.setInt("uTerrainTextures", 0);
             shader.setInt("uShadowMap", 1);
+            shader.setVector2f("uMorphCenter", terrain.getViewCenterX(), terrain.getViewCenterZ());
             shader.setVector3fArray("uBiomeTextureWeights", new Vector3f[]{
                     BiomeType.GRASSLAND.getTextureWeights(),
                     BiomeType.HIGHLANDS.getTextureWeights(),
@@ -129,22 +162,7 @@ public class TerrainApp {
             terrainTextures.bind(0);
             shadowMap.bindForReading(1);
 
-            frustumCuller.update(projectionView);
-
-            for (Chunk chunk : chunkManager.getChunks()) {
-                ChunkMesh mesh = chunk.getMesh();
-                if (mesh == null) {
-                    continue;
-                }
-                float minX = chunk.getChunkX() * CHUNK_SIZE;
-                float maxX = minX + CHUNK_SIZE;
-                float minZ = chunk.getChunkZ() * CHUNK_SIZE;
-                float maxZ = minZ + CHUNK_SIZE;
-                if (!frustumCuller.isVisible(minX, chunk.getMinY(), minZ, maxX, chunk.getMaxY(), maxZ)) {
-                    continue;
-                }
-                mesh.draw();
-            }
+            terrainDraws.draw(terrain.getVertexArena());
 
             shader.unbind();
 
@@ -155,6 +173,48 @@ public class TerrainApp {
         }
     }
 
+    private void buildDrawLists() {
+        terrainDraws.clear();
+        shadowDraws.clear();
+        for (int i = 0; i < terrain.getPatchCount(); i++) {
+            TerrainPatch patch = terrain.getPatch(i);
+            ChunkMesh mesh = patch.getMesh();
+            if (mesh == null) {
+                continue;
+            }
+            float minX = patch.getOriginX();
+            float maxX = minX + patch.getSize();
+            float minZ = patch.getOriginZ();
+            float maxZ = minZ + patch.getSize();
+            float morphStart = terrain.getMorphStart(patch.getLod());
+            float morphEnd = terrain.getMorphEnd(patch.getLod());
+            shadowDraws.add(mesh, minX, minZ, morphStart, morphEnd);
+            if (frustumCuller.isVisible(minX, patch.getMinY(), minZ, maxX, patch.getMaxY(), maxZ)) {
+                terrainDraws.add(mesh, minX, minZ, morphStart, morphEnd);
+            }
+        }
+        terrainDraws.upload();
+        shadowDraws.upload();
+    }
+
+    private void updateStatsTitle(double now) {
+        if (now - lastStatsTime < 1.0) {
+            return;
+        }
+        lastStatsTime = now;
+        StringBuilder title = new StringBuilder(WINDOW_TITLE);
+        for (GenerationExecutor.LaneStats stats : generationExecutor.getStats()) {
+            title.append(String.format(" | %s q=%d up=%d wait=%.1fms", stats.name(), stats.queued(),
+                    stats.uploadBacklog(), stats.averageWaitMillis()));
+            if (stats.failed() > 0) {
+                title.append(" failed=").append(stats.failed());
+            }
+        }
+        title.append(String.format(" | cache terrain %.0f%% features %.0f%%",
+                terrain.getMeshCacheStats().hitRate() * 100.0, featureManager.getMeshCacheStats().hitRate() * 100.0));
+        glfwSetWindowTitle(window, title);
+    }
+
     private float getAspectRatio() {
         int[] width = new int[1];
         int[] height = new int[1];
@@ -163,8 +223,14 @@ public class TerrainApp {
     }
 
     private void cleanup() {
-        chunkManager.shutdown();
+        generationExecutor.shutdown();
+        terrain.shutdown();
+        if (chunkDiskCache != null) {
+            chunkDiskCache.close();
+        }
         featureManager.shutdown();
+        terrainDraws.dispose();
+        shadowDraws.dispose();
         shader.dispose();
         shadowShader.dispose();
         featureShader.dispose();
@@ -189,19 +255,15 @@ public class TerrainApp {
         featureShader.setInt("uShadowMap", 1);
         shadowMap.bindForReading(1);
 
-        Vector3f cameraPos = camera.getPosition();
-        float nearThreshold = CHUNK_SIZE * 2.5f;
-        for (FeatureChunk chunk : featureManager.getChunks()) {
-            float centerX = (chunk.getChunkX() + 0.5f) * CHUNK_SIZE;
-            float centerZ = (chunk.getChunkZ() + 0.5f) * CHUNK_SIZE;
-            float dx = centerX - cameraPos.x;
-            float dz = centerZ - cameraPos.z;
-            float distSq = dx * dx + dz * dz;
-            FeatureMesh mesh = distSq < nearThreshold * nearThreshold ? chunk.getNearMesh() : chunk.getFarMesh();
-            if (mesh != null) {
-                mesh.draw();
+        FeaturePrototypeSet prototypes = featureManager.getPrototypes();
+        prototypes.bind();
+        for (int i = 0; i < featureManager.getChunkCount(); i++) {
+            FeatureInstanceBuffer instances = featureManager.getChunk(i).getInstances();
+            if (instances != null) {
+                prototypes.draw(instances);
             }
         }
+        prototypes.unbind();
 
         featureShader.unbind();
     }
@@ -209,7 +271,7 @@ public class TerrainApp {
     private void updateCascades() {
         float aspect = getAspectRatio();
         float near = camera.getNearPlane();
-        float far = camera.getFarPlane();
+        float far = Math.min(camera.getFarPlane(), MAX_SHADOW_DISTANCE);
         float lambda = 0.65f;
         float clipRange = far - near;
         float minZ = near;
@@ -248,12 +310,8 @@ public class TerrainApp {
         for (int i = 0; i < CASCADE_COUNT; i++) {
             shadowMap.bindForWriting(i);
             shadowShader.setMatrix4f("uLightViewProj", cascadeMatrices[i]);
-            for (Chunk chunk : chunkManager.getChunks()) {
-                ChunkMesh mesh = chunk.getMesh();
-                if (mesh != null) {
-                    mesh.draw();
-                }
-            }
+            shadowShader.setVector2f("uMorphCenter", terrain.getViewCenterX(), terrain.getViewCenterZ());
+            shadowDraws.draw(terrain.getVertexArena());
         }
         shadowShader.unbind();
         glCullFace(GL_BACK);
@@ -0,0 +1,102 @@
+package com.example.terrain;
+
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import static org.lwjgl.opengl.GL46.*;
+
+public class TerrainDrawList {
+    private static final int DRAW_DATA_BINDING = 0;
+    private static final int COMMAND_INTS = 5;
+    private static final int DRAW_DATA_FLOATS = 4;
+
+    private final int commandBufferId;
+    private final int drawDataBufferId;
+    private IntBuffer commands;
+    private FloatBuffer drawData;
+    private int count;
+    private int capacity;
+
+    public TerrainDrawList(int initialCapacity) {
+        this.capacity = Math.max(initialCapacity, 1);
+        this.commands = MemoryUtil.memAllocInt(capacity * COMMAND_INTS);
+        this.drawData = MemoryUtil.memAllocFloat(capacity * DRAW_DATA_FLOATS);
+        this.commandBufferId = glCreateBuffers();
+        this.drawDataBufferId = glCreateBuffers();
+    }
+
+    public void clear() {
+        count = 0;
+        commands.clear();
+        drawData.clear();
+    }
+
+    public void add(ChunkMesh mesh, float originX, float originZ, float morphStart, float morphEnd) {
+        IndexBufferRegistry.PatchIndices indices = mesh.getIndices();
+        int first = indices.interior().firstIndex();
+        int end = first + indices.interior().indexCount();
+        for (int edge = 0; edge < IndexBufferRegistry.EDGE_COUNT; edge++) {
+            IndexBufferRegistry.SharedIndexBuffer strip = indices.edge(edge, mesh.getEdgeCollapse(edge));
+            if (strip.firstIndex() != end) {
+                addRange(mesh, first, end - first, originX, originZ, morphStart, morphEnd);
+                first = strip.firstIndex();
+            }
+            end = strip.firstIndex() + strip.indexCount();
+        }
+        addRange(mesh, first, end - first, originX, originZ, morphStart, morphEnd);
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void upload() {
+        if (count == 0) {
+            return;
+        }
+        glNamedBufferData(commandBufferId, commands.flip(), GL_STREAM_DRAW);
+        glNamedBufferData(drawDataBufferId, drawData.flip(), GL_STREAM_DRAW);
+    }
+
+    public void draw(TerrainVertexArena arena) {
+        if (count == 0) {
+            return;
+        }
+        arena.bind();
+        glBindBuffer(GL_DRAW_INDIRECT_BUFFER, commandBufferId);
+        glBindBufferBase(GL_SHADER_STORAGE_BUFFER, DRAW_DATA_BINDING, drawDataBufferId);
+        glMultiDrawElementsIndirect(GL_TRIANGLES, arena.getIndexType(), 0, count, 0);
+        glBindBuffer(GL_DRAW_INDIRECT_BUFFER, 0);
+        arena.unbind();
+    }
+
+    public void dispose() {
+        glDeleteBuffers(commandBufferId);
+        glDeleteBuffers(drawDataBufferId);
+        MemoryUtil.memFree(commands);
+        MemoryUtil.memFree(drawData);
+    }
+
+    private void addRange(ChunkMesh mesh, int firstIndex, int indexCount, float originX, float originZ, float morphStart,
+                          float morphEnd) {
+        if (indexCount == 0) {
+            return;
+        }
+        if (count == capacity) {
+            grow();
+        }
+        commands.put(indexCount).put(1).put(firstIndex).put(mesh.getBaseVertex()).put(0);
+        drawData.put(originX).put(originZ).put(morphStart).put(morphEnd);
+        count++;
+    }
+
+    private void grow() {
+        capacity *= 2;
+        commands = MemoryUtil.memRealloc(commands, capacity * COMMAND_INTS);
+        drawData = MemoryUtil.memRealloc(drawData, capacity * DRAW_DATA_FLOATS);
+        commands.limit(commands.capacity()).position(count * COMMAND_INTS);
+        drawData.limit(drawData.capacity()).position(count * DRAW_DATA_FLOATS);
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.terrain;
 
 public class TerrainGenerator {
+    private static final int GENERATOR_VERSION = 1;
+
+    private final int seed;
     private final Noise2D noise;
     private final int octaves;
     private final float lacunarity;
@@ -8,6 +11,7 @@ public class TerrainGenerator {
     private final BiomeMap biomeMap;
 
     public TerrainGenerator(int seed) {
+        this.seed = seed;
         this.noise = new Noise2D(seed);
         this.octaves = 5;
         this.lacunarity = 2.0f;
@@ -15,6 +19,26 @@ public class TerrainGenerator {
         this.biomeMap = new BiomeMap(seed ^ 0x5f3759df, 256.0f);
     }
 
+    public int getSeed() {
+        return seed;
+    }
+
+    public long getFingerprint() {
+        long hash = 0xcbf29ce484222325L;
+        hash = mix(hash, GENERATOR_VERSION);
+        hash = mix(hash, octaves);
+        hash = mix(hash, Float.floatToIntBits(lacunarity));
+        hash = mix(hash, Float.floatToIntBits(gain));
+        hash = mix(hash, Float.floatToIntBits(biomeMap.getBiomeSize()));
+        for (BiomeType biome : BiomeType.values()) {
+            hash = mix(hash, biome.name().hashCode());
+            hash = mix(hash, Float.floatToIntBits(biome.getBaseHeight()));
+            hash = mix(hash, Float.floatToIntBits(biome.getAmplitude()));
+            hash = mix(hash, Float.floatToIntBits(biome.getFrequency()));
+        }
+        return hash;
+    }
+
     public float getHeight(float worldX, float worldZ) {
         BiomeSample sample = biomeMap.sample(worldX, worldZ);
         float height = 0.0f;
@@ -24,10 +48,89 @@ public class TerrainGenerator {
         return height;
     }
 
+    public void fillHeights(int originX, int originZ, int step, int width, int height, float[] heightsOut, float[] biomeWeightsOut) {
+        fillHeights(originX, originZ, step, width, height, heightsOut, biomeWeightsOut, null);
+    }
+
+    public void fillHeights(int originX, int originZ, int step, int width, int height, float[] heightsOut, float[] biomeWeightsOut,
+                            float[] slopesOut) {
+        float[] weights = biomeWeightsOut != null ? biomeWeightsOut : ScratchArrays.floats(ScratchArrays.Slot.BIOME_WEIGHTS, width * height * 3);
+        float[] weightSlopes = slopesOut != null ? ScratchArrays.floats(ScratchArrays.Slot.WEIGHT_SLOPES, width * height * 6) : null;
+        biomeMap.sampleGrid(originX, originZ, step, width, height, weights, weightSlopes);
+
+        BiomeType[] biomes = BiomeType.values();
+        float[] coords = ScratchArrays.floats(ScratchArrays.Slot.NOISE_COORDS, width);
+        float[] noiseRow = ScratchArrays.floats(ScratchArrays.Slot.NOISE_ROW, width);
+        float[] noiseDx = slopesOut != null ? ScratchArrays.floats(ScratchArrays.Slot.NOISE_DX, width) : null;
+        float[] noiseDz = slopesOut != null ? ScratchArrays.floats(ScratchArrays.Slot.NOISE_DZ, width) : null;
+
+        for (int z = 0; z < height; z++) {
+            float worldZ = originZ + z * step;
+            int rowOffset = z * width;
+            for (int x = 0; x < width; x++) {
+                heightsOut[rowOffset + x] = 0.0f;
+            }
+            if (slopesOut != null) {
+                for (int x = 0; x < width * 2; x++) {
+                    slopesOut[rowOffset * 2 + x] = 0.0f;
+                }
+            }
+
+            for (int b = 0; b < biomes.length; b++) {
+                if (!anyWeight(weights, rowOffset, b, width)) {
+                    continue;
+                }
+                BiomeType biome = biomes[b];
+                float frequency = biome.getFrequency();
+                for (int x = 0; x < width; x++) {
+                    float worldX = originX + x * step;
+                    coords[x] = worldX * frequency;
+                }
+                if (slopesOut != null) {
+                    noise.fbmRowDerivatives(coords, width, worldZ * frequency, octaves, lacunarity, gain, noiseRow, noiseDx, noiseDz);
+                    accumulateSlopes(biome, b, frequency, rowOffset, width, weights, weightSlopes, noiseRow, noiseDx, noiseDz, slopesOut);
+                } else {
+                    noise.fbmRow(coords, width, worldZ * frequency, octaves, lacunarity, gain, noiseRow);
+                }
+                for (int x = 0; x < width; x++) {
+                    float weight = weights[(rowOffset + x) * 3 + b];
+                    if (weight != 0.0f) {
+                        heightsOut[rowOffset + x] += weight * (biome.getBaseHeight() + noiseRow[x] * biome.getAmplitude());
+                    }
+                }
+            }
+        }
+    }
+
     public BiomeSample sampleBiome(float worldX, float worldZ) {
         return biomeMap.sample(worldX, worldZ);
     }
 
+    private static long mix(long hash, int value) {
+        return (hash ^ value) * 0x100000001b3L;
+    }
+
+    private void accumulateSlopes(BiomeType biome, int b, float frequency, int rowOffset, int width, float[] weights,
+                                  float[] weightSlopes, float[] noiseRow, float[] noiseDx, float[] noiseDz, float[] slopesOut) {
+        float slopeScale = biome.getAmplitude() * frequency;
+        for (int x = 0; x < width; x++) {
+            int sample = rowOffset + x;
+            float weight = weights[sample * 3 + b];
+            float biomeHeight = biome.getBaseHeight() + noiseRow[x] * biome.getAmplitude();
+            slopesOut[sample * 2] += weight * noiseDx[x] * slopeScale + weightSlopes[(sample * 3 + b) * 2] * biomeHeight;
+            slopesOut[sample * 2 + 1] += weight * noiseDz[x] * slopeScale + weightSlopes[(sample * 3 + b) * 2 + 1] * biomeHeight;
+        }
+    }
+
+    private boolean anyWeight(float[] weights, int rowOffset, int biome, int width) {
+        for (int x = 0; x < width; x++) {
+            if (weights[(rowOffset + x) * 3 + biome] != 0.0f) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private float evalBiome(BiomeType biome, float worldX, float worldZ) {
         float height = noise.fbm(worldX * biome.getFrequency(), worldZ * biome.getFrequency(), octaves, lacunarity, gain);
         return biome.getBaseHeight() + height * biome.getAmplitude();
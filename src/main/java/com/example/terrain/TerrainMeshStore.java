@@ -0,0 +1,125 @@
+package com.example.terrain;
+
+final class TerrainMeshStore<K> {
+    private static final int TERRAIN_WEIGHT = 4;
+    private static final int MAX_UPLOAD_BACKLOG = 32;
+    private static final long VERTEX_POOL_BYTES = 16L * 1024 * 1024;
+    private static final int UPLOAD_RING_BYTES = 16 * 1024 * 1024;
+    private static final int ARENA_HEADROOM = 2;
+
+    private final UploadStage<MeshUpload> uploads = new UploadStage<>();
+    private final BufferPool vertexPool = new BufferPool(VERTEX_POOL_BYTES);
+    private final UploadRing uploadRing = new UploadRing(UPLOAD_RING_BYTES, vertexPool);
+    private final UploadStage.Uploader<MeshUpload> uploader = this::upload;
+    private final IndexBufferRegistry indexBuffers;
+    private final TerrainVertexArena arena;
+    private final ByteSizeLruCache<K, ChunkMesh> meshCache;
+    private final BuildScheduler scheduler;
+    private final UploadBudget uploadBudget;
+    private final MeshTarget target;
+
+    TerrainMeshStore(String lane, GenerationExecutor executor, UploadBudget uploadBudget, int cellSize, long residentBytes,
+                     MeshTarget target, int... vertsPerSide) {
+        this.uploadBudget = uploadBudget;
+        this.target = target;
+        this.indexBuffers = new IndexBufferRegistry(vertsPerSide);
+        this.arena = new TerrainVertexArena(residentBytes * ARENA_HEADROOM, indexBuffers);
+        this.meshCache = new ByteSizeLruCache<>(residentBytes / 2, ChunkMesh::getByteSize, ChunkMesh::dispose);
+        this.scheduler = new BuildScheduler(cellSize);
+        executor.register(lane, scheduler, TERRAIN_WEIGHT, uploads, MAX_UPLOAD_BACKLOG);
+    }
+
+    static void stitch(ChunkMesh mesh, int lod, int negXLod, int posXLod, int negZLod, int posZLod) {
+        mesh.setEdgeCollapse(IndexBufferRegistry.EDGE_NEG_X, Math.max(0, negXLod - lod));
+        mesh.setEdgeCollapse(IndexBufferRegistry.EDGE_POS_X, Math.max(0, posXLod - lod));
+        mesh.setEdgeCollapse(IndexBufferRegistry.EDGE_NEG_Z, Math.max(0, negZLod - lod));
+        mesh.setEdgeCollapse(IndexBufferRegistry.EDGE_POS_Z, Math.max(0, posZLod - lod));
+    }
+
+    BuildScheduler getScheduler() {
+        return scheduler;
+    }
+
+    UploadRing getUploadRing() {
+        return uploadRing;
+    }
+
+    TerrainVertexArena getArena() {
+        return arena;
+    }
+
+    ByteSizeLruCache.Stats getCacheStats() {
+        return meshCache.getStats();
+    }
+
+    void offer(int cellX, int cellZ, long key, ChunkMeshData data) {
+        try {
+            uploads.offer(cellX, cellZ, data.byteSize(), new MeshUpload(key, data));
+        } catch (Throwable e) {
+            uploadRing.release(data.vertices());
+            throw e;
+        }
+    }
+
+    int drain(int cameraCellX, int cameraCellZ) {
+        int uploaded = uploads.drain(cameraCellX, cameraCellZ, uploadBudget, uploader);
+        uploadRing.endFrame();
+        return uploaded;
+    }
+
+    ChunkMesh takeCached(K key) {
+        return meshCache.take(key);
+    }
+
+    void retain(K key, ChunkMesh mesh) {
+        if (mesh != null) {
+            meshCache.put(key, mesh);
+        }
+    }
+
+    void clear() {
+        scheduler.clear();
+        uploads.clear(upload -> uploadRing.release(upload.meshData().vertices()));
+        meshCache.clear();
+    }
+
+    void dispose() {
+        arena.dispose();
+        indexBuffers.dispose();
+        uploadRing.dispose();
+        vertexPool.clear();
+    }
+
+    private UploadStage.Result upload(MeshUpload upload) {
+        ChunkMeshData data = upload.meshData();
+        if (!target.accepts(upload.key(), data)) {
+            uploadRing.release(data.vertices());
+            return UploadStage.Result.DROPPED;
+        }
+        ChunkMesh mesh = uploadToArena(data);
+        if (mesh == null) {
+            return UploadStage.Result.DEFERRED;
+        }
+        target.install(upload.key(), mesh);
+        return UploadStage.Result.UPLOADED;
+    }
+
+    private ChunkMesh uploadToArena(ChunkMeshData data) {
+        IndexBufferRegistry.PatchIndices indices = indexBuffers.get(data.vertsPerSide());
+        while (arena.getLargestFreeBlock() < data.vertexCount()) {
+            if (!meshCache.evictEldest()) {
+                return null;
+            }
+        }
+        return ChunkMesh.upload(data, indices, arena, uploadRing);
+    }
+
+    interface MeshTarget {
+        boolean accepts(long key, ChunkMeshData data);
+
+        void install(long key, ChunkMesh mesh);
+    }
+
+    private record MeshUpload(long key, ChunkMeshData meshData) {
+    }
+}
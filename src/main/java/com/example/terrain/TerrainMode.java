@@ -0,0 +1,15 @@
+package com.example.terrain;
+
+import java.util.Locale;
+
+public enum TerrainMode {
+    GRID,
+    QUADTREE;
+
+    public static TerrainMode fromProperty(String value) {
+        if (value == null || value.isBlank()) {
+            return GRID;
+        }
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
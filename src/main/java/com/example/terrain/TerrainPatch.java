@@ -0,0 +1,17 @@
+package com.example.terrain;
+
+public interface TerrainPatch {
+    int getOriginX();
+
+    int getOriginZ();
+
+    int getSize();
+
+    int getLod();
+
+    float getMinY();
+
+    float getMaxY();
+
+    ChunkMesh getMesh();
+}
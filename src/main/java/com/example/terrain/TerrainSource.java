@@ -0,0 +1,27 @@
+package com.example.terrain;
+
+import org.joml.Vector3f;
+
+public interface TerrainSource {
+    void update(Vector3f cameraPosition, Vector3f cameraForward);
+
+    int getPatchCount();
+
+    TerrainPatch getPatch(int index);
+
+    float getViewRange();
+
+    float getViewCenterX();
+
+    float getViewCenterZ();
+
+    float getMorphStart(int lod);
+
+    float getMorphEnd(int lod);
+
+    ByteSizeLruCache.Stats getMeshCacheStats();
+
+    TerrainVertexArena getVertexArena();
+
+    void shutdown();
+}
@@ -0,0 +1,76 @@
+package com.example.terrain;
+
+import static org.lwjgl.opengl.GL46.*;
+
+public class TerrainVertexArena {
+    private static final int VERTEX_BINDING = 0;
+
+    private final ArenaAllocator allocator;
+    private final IndexBufferRegistry indexBuffers;
+    private final int vaoId;
+    private final int vboId;
+
+    public TerrainVertexArena(long capacityBytes, IndexBufferRegistry indexBuffers) {
+        this.allocator = new ArenaAllocator(capacityBytes / TerrainVertexFormat.STRIDE);
+        this.indexBuffers = indexBuffers;
+        this.vboId = glCreateBuffers();
+        glNamedBufferStorage(vboId, allocator.getCapacity() * TerrainVertexFormat.STRIDE, GL_DYNAMIC_STORAGE_BIT);
+
+        vaoId = glCreateVertexArrays();
+        glVertexArrayVertexBuffer(vaoId, VERTEX_BINDING, vboId, 0, TerrainVertexFormat.STRIDE);
+        glVertexArrayElementBuffer(vaoId, indexBuffers.getBufferId());
+        integerAttribute(0, 3, GL_UNSIGNED_SHORT, TerrainVertexFormat.POSITION_OFFSET);
+        attribute(1, 2, GL_BYTE, TerrainVertexFormat.NORMAL_OFFSET);
+        attribute(2, 2, GL_UNSIGNED_BYTE, TerrainVertexFormat.BIOME_OFFSET);
+        integerAttribute(3, 1, GL_UNSIGNED_SHORT, TerrainVertexFormat.MORPH_OFFSET);
+    }
+
+    public int allocate(int vertexCount) {
+        return (int) allocator.allocate(vertexCount);
+    }
+
+    public void free(int baseVertex) {
+        allocator.free(baseVertex);
+    }
+
+    public long getLargestFreeBlock() {
+        return allocator.getLargestFreeBlock();
+    }
+
+    public int getBufferId() {
+        return vboId;
+    }
+
+    public int getIndexType() {
+        return indexBuffers.getIndexType();
+    }
+
+    public long getUsedBytes() {
+        return allocator.getUsed() * TerrainVertexFormat.STRIDE;
+    }
+
+    public void bind() {
+        glBindVertexArray(vaoId);
+    }
+
+    public void unbind() {
+        glBindVertexArray(0);
+    }
+
+    public void dispose() {
+        glDeleteVertexArrays(vaoId);
+        glDeleteBuffers(vboId);
+    }
+
+    private void attribute(int location, int size, int type, int offset) {
+        glEnableVertexArrayAttrib(vaoId, location);
+        glVertexArrayAttribFormat(vaoId, location, size, type, true, offset);
+        glVertexArrayAttribBinding(vaoId, location, VERTEX_BINDING);
+    }
+
+    private void integerAttribute(int location, int size, int type, int offset) {
+        glEnableVertexArrayAttrib(vaoId, location);
+        glVertexArrayAttribIFormat(vaoId, location, size, type, offset);
+        glVertexArrayAttribBinding(vaoId, location, VERTEX_BINDING);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.terrain;
+
+import java.nio.ByteBuffer;
+
+public final class TerrainVertexFormat {
+    public static final int STRIDE = 12;
+    public static final int POSITION_OFFSET = 0;
+    public static final int NORMAL_OFFSET = 6;
+    public static final int BIOME_OFFSET = 8;
+    public static final int MORPH_OFFSET = 10;
+    public static final float HEIGHT_MIN = -128.0f;
+    public static final float HEIGHT_SCALE = 128.0f;
+
+    private TerrainVertexFormat() {
+    }
+
+    public static void put(ByteBuffer buffer, int localX, int localZ, float height,
+                           float normalX, float normalY, float normalZ, float grassWeight, float highlandsWeight,
+                           float morphHeight) {
+        buffer.putShort((short) localX);
+        buffer.putShort(encodeHeight(height));
+        buffer.putShort((short) localZ);
+        putOctahedral(buffer, normalX, normalY, normalZ);
+        buffer.put(encodeUnorm8(grassWeight));
+        buffer.put(encodeUnorm8(highlandsWeight));
+        buffer.putShort(encodeHeight(morphHeight));
+    }
+
+    public static short encodeHeight(float height) {
+        float quantized = Math.round((height - HEIGHT_MIN) * HEIGHT_SCALE);
+        return (short) Math.max(0.0f, Math.min(65535.0f, quantized));
+    }
+
+    public static float decodeHeight(short encoded) {
+        return (encoded & 0xffff) / HEIGHT_SCALE + HEIGHT_MIN;
+    }
+
+    private static void putOctahedral(ByteBuffer buffer, float x, float y, float z) {
+        float l1 = Math.abs(x) + Math.abs(y) + Math.abs(z);
+        float u = x / l1;
+        float v = z / l1;
+        if (y < 0.0f) {
+            float foldedU = (1.0f - Math.abs(v)) * signNotZero(u);
+            float foldedV = (1.0f - Math.abs(u)) * signNotZero(v);
+            u = foldedU;
+            v = foldedV;
+        }
+        buffer.put(encodeSnorm8(u));
+        buffer.put(encodeSnorm8(v));
+    }
+
+    private static float signNotZero(float value) {
+        return value >= 0.0f ? 1.0f : -1.0f;
+    }
+
+    private static byte encodeSnorm8(float value) {
+        return (byte) Math.round(Math.max(-1.0f, Math.min(1.0f, value)) * 127.0f);
+    }
+
+    private static byte encodeUnorm8(float value) {
+        return (byte) Math.round(Math.max(0.0f, Math.min(1.0f, value)) * 255.0f);
+    }
+}
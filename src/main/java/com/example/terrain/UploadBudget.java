@@ -0,0 +1,48 @@
+package com.example.terrain;
+
+import java.util.function.LongSupplier;
+
+public class UploadBudget {
+    private final long maxBytesPerFrame;
+    private final long maxNanosPerFrame;
+    private final LongSupplier clock;
+    private long frameStart;
+    private long usedBytes;
+    private int uploads;
+
+    public UploadBudget(long maxBytesPerFrame, long maxMicrosPerFrame) {
+        this(maxBytesPerFrame, maxMicrosPerFrame, System::nanoTime);
+    }
+
+    public UploadBudget(long maxBytesPerFrame, long maxMicrosPerFrame, LongSupplier clock) {
+        this.maxBytesPerFrame = maxBytesPerFrame;
+        this.maxNanosPerFrame = maxMicrosPerFrame * 1000L;
+        this.clock = clock;
+    }
+
+    public void beginFrame() {
+        frameStart = clock.getAsLong();
+        usedBytes = 0;
+        uploads = 0;
+    }
+
+    public boolean hasRemaining() {
+        if (uploads == 0) {
+            return true;
+        }
+        return usedBytes < maxBytesPerFrame && clock.getAsLong() - frameStart < maxNanosPerFrame;
+    }
+
+    public void consume(long bytes) {
+        usedBytes += bytes;
+        uploads++;
+    }
+
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public int getUploads() {
+        return uploads;
+    }
+}
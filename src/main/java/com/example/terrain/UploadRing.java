@@ -0,0 +1,110 @@
+package com.example.terrain;
+
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+
+import static org.lwjgl.opengl.GL46.*;
+
+public class UploadRing implements VertexStaging {
+    private static final int ALIGNMENT = 256;
+    private static final int MAP_FLAGS = GL_MAP_WRITE_BIT | GL_MAP_PERSISTENT_BIT | GL_MAP_COHERENT_BIT;
+
+    private final int bufferId;
+    private final ByteBuffer mapped;
+    private final long baseAddress;
+    private final RingAllocator allocator;
+    private final BufferPool fallback;
+    private final ArrayDeque<PendingFence> fences = new ArrayDeque<>();
+    private long nextFence = 1;
+    private boolean copiesIssued;
+    private volatile boolean disposed;
+
+    public UploadRing(int capacity, BufferPool fallback) {
+        this.fallback = fallback;
+        this.allocator = new RingAllocator(capacity, ALIGNMENT);
+        this.bufferId = glCreateBuffers();
+        glNamedBufferStorage(bufferId, capacity, MAP_FLAGS);
+        ByteBuffer mapping = glMapNamedBufferRange(bufferId, 0, capacity, MAP_FLAGS);
+        if (mapping == null) {
+            throw new IllegalStateException("Failed to map upload ring of " + capacity + " bytes");
+        }
+        this.mapped = mapping.order(ByteOrder.nativeOrder());
+        this.baseAddress = MemoryUtil.memAddress(mapped);
+    }
+
+    @Override
+    public ByteBuffer acquire(int bytes) {
+        long offset = disposed ? -1 : allocator.allocate(bytes);
+        if (offset < 0) {
+            return fallback.acquire(bytes);
+        }
+        return mapped.slice((int) offset, bytes).order(ByteOrder.nativeOrder());
+    }
+
+    @Override
+    public void release(ByteBuffer buffer) {
+        long offset = offsetOf(buffer);
+        if (offset >= 0) {
+            allocator.free(offset);
+        } else {
+            fallback.release(buffer);
+        }
+    }
+
+    public void upload(ByteBuffer vertices, int targetBuffer, long targetOffset) {
+        long offset = offsetOf(vertices);
+        if (offset >= 0) {
+            glCopyNamedBufferSubData(bufferId, targetBuffer, offset + vertices.position(), targetOffset, vertices.remaining());
+            allocator.retire(offset, nextFence);
+            copiesIssued = true;
+        } else {
+            glNamedBufferSubData(targetBuffer, targetOffset, vertices);
+            fallback.release(vertices);
+        }
+    }
+
+    public void endFrame() {
+        if (copiesIssued) {
+            fences.addLast(new PendingFence(nextFence++, glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0)));
+            copiesIssued = false;
+        }
+        while (!fences.isEmpty()) {
+            PendingFence fence = fences.peekFirst();
+            int status = glClientWaitSync(fence.sync(), 0, 0);
+            if (status != GL_ALREADY_SIGNALED && status != GL_CONDITION_SATISFIED) {
+                break;
+            }
+            glDeleteSync(fence.sync());
+            allocator.reclaim(fence.token());
+            fences.removeFirst();
+        }
+    }
+
+    public long getUsedBytes() {
+        return allocator.getUsedBytes();
+    }
+
+    public void dispose() {
+        disposed = true;
+        for (PendingFence fence : fences) {
+            glDeleteSync(fence.sync());
+        }
+        fences.clear();
+        glUnmapNamedBuffer(bufferId);
+        glDeleteBuffers(bufferId);
+    }
+
+    private long offsetOf(ByteBuffer buffer) {
+        if (!buffer.isDirect()) {
+            return -1;
+        }
+        long offset = MemoryUtil.memAddress0(buffer) - baseAddress;
+        return offset >= 0 && offset < allocator.getCapacity() ? offset : -1;
+    }
+
+    private record PendingFence(long token, long sync) {
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.terrain;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+public class UploadStage<T> {
+    private final ConcurrentLinkedQueue<Entry<T>> incoming = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final List<Entry<T>> waiting = new ArrayList<>();
+    private Runnable drainListener = () -> {
+    };
+
+    void setDrainListener(Runnable drainListener) {
+        this.drainListener = drainListener;
+    }
+
+    public void offer(int chunkX, int chunkZ, long bytes, T item) {
+        pending.incrementAndGet();
+        incoming.add(new Entry<>(chunkX, chunkZ, bytes, item));
+    }
+
+    public int pendingCount() {
+        return pending.get();
+    }
+
+    public int drain(int cameraChunkX, int cameraChunkZ, UploadBudget budget, Uploader<T> uploader) {
+        Entry<T> entry;
+        while ((entry = incoming.poll()) != null) {
+            waiting.add(entry);
+        }
+        if (waiting.isEmpty()) {
+            return 0;
+        }
+        for (Entry<T> waitingEntry : waiting) {
+            int dx = waitingEntry.chunkX - cameraChunkX;
+            int dz = waitingEntry.chunkZ - cameraChunkZ;
+            waitingEntry.distance = dx * dx + dz * dz;
+        }
+        waiting.sort(Comparator.comparingInt(e -> e.distance));
+
+        int processed = 0;
+        int uploaded = 0;
+        while (processed < waiting.size() && budget.hasRemaining()) {
+            Entry<T> next = waiting.get(processed);
+            Result result = uploader.upload(next.item);
+            if (result == Result.DEFERRED) {
+                break;
+            }
+            processed++;
+            if (result == Result.UPLOADED) {
+                budget.consume(next.bytes);
+                uploaded++;
+            }
+        }
+        waiting.subList(0, processed).clear();
+        pending.addAndGet(-processed);
+        if (processed > 0) {
+            drainListener.run();
+        }
+        return uploaded;
+    }
+
+    public void clear() {
+        clear(item -> {
+        });
+    }
+
+    public void clear(Consumer<? super T> discard) {
+        Entry<T> entry;
+        while ((entry = incoming.poll()) != null) {
+            waiting.add(entry);
+        }
+        for (Entry<T> waitingEntry : waiting) {
+            discard.accept(waitingEntry.item);
+        }
+        waiting.clear();
+        pending.set(0);
+        drainListener.run();
+    }
+
+    public enum Result {
+        UPLOADED,
+        DROPPED,
+        DEFERRED
+    }
+
+    public interface Uploader<T> {
+        Result upload(T item);
+    }
+
+    private static final class Entry<T> {
+        private final int chunkX;
+        private final int chunkZ;
+        private final long bytes;
+        private final T item;
+        private int distance;
+
+        private Entry(int chunkX, int chunkZ, long bytes, T item) {
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.bytes = bytes;
+            this.item = item;
+        }
+    }
+}
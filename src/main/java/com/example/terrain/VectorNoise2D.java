@@ -0,0 +1,198 @@
+package com.example.terrain;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+
+final class VectorNoise2D implements FbmRowKernel {
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final int MIN_LANES = 8;
+    private static final IntVector ONES = IntVector.broadcast(INTS, Float.floatToRawIntBits(1.0f));
+    private static final int COORDS = 0;
+    private static final int SUM = 1;
+    private static final int SUM_DX = 2;
+    private static final int SUM_DZ = 3;
+    private static final int DX0 = 4;
+    private static final int DX1 = 5;
+    private static final int SX = 6;
+    private static final int DSX = 7;
+    private static final int ROW0 = 8;
+    private static final int ROW1 = 11;
+    private static final int ROWS = 14;
+
+    VectorNoise2D() {
+        if (FLOATS.length() < MIN_LANES || INTS.length() != FLOATS.length()) {
+            throw new UnsupportedOperationException("Preferred vector shape too narrow: " + FLOATS);
+        }
+    }
+
+    @Override
+    public void fbmRow(int seed, float[] xs, int count, float z, int octaves, float lacunarity, float gain, float[] out) {
+        fbm(seed, xs, count, z, octaves, lacunarity, gain, out, null, null);
+    }
+
+    @Override
+    public void fbmRowDerivatives(int seed, float[] xs, int count, float z, int octaves, float lacunarity, float gain,
+                                  float[] out, float[] outDx, float[] outDz) {
+        fbm(seed, xs, count, z, octaves, lacunarity, gain, out, outDx, outDz);
+    }
+
+    private void fbm(int seed, float[] xs, int count, float z, int octaves, float lacunarity, float gain, float[] out,
+                     float[] outDx, float[] outDz) {
+        boolean derivatives = outDx != null;
+        int width = FLOATS.loopBound(count + FLOATS.length() - 1);
+        float[] rows = ScratchArrays.floats(ScratchArrays.Slot.NOISE_LATTICE, width * ROWS);
+        int[] lattice = ScratchArrays.ints(ScratchArrays.Slot.NOISE_LATTICE, width * 5);
+        System.arraycopy(xs, 0, rows, 0, count);
+        Arrays.fill(rows, count, width * (SUM_DZ + 1), 0.0f);
+        float amplitude = 1.0f;
+        float frequency = 1.0f;
+        float max = 0.0f;
+        for (int octave = 0; octave < octaves; octave++) {
+            accumulateOctave(seed, width, z * frequency, frequency, amplitude, rows, lattice, derivatives);
+            max += amplitude;
+            amplitude *= gain;
+            frequency *= lacunarity;
+        }
+        for (int i = 0; i < count; i++) {
+            out[i] = rows[width * SUM + i] / max;
+        }
+        if (derivatives) {
+            for (int i = 0; i < count; i++) {
+                outDx[i] = rows[width * SUM_DX + i] / max;
+                outDz[i] = rows[width * SUM_DZ + i] / max;
+            }
+        }
+    }
+
+    // A fused loop exceeds C2's inlining budget and boxes vectors at every helper call, so each octave runs as small
+    // unmasked passes over lane-padded scratch rows that pass only arrays between methods.
+    private void accumulateOctave(int seed, int width, float fz, float frequency, float amplitude, float[] rows,
+                                  int[] lattice, boolean derivatives) {
+        int z0 = fastFloor(fz);
+        int z1 = z0 + 1;
+        float dz0 = fz - z0;
+        latticeHashes(seed ^ (z0 * 0x165667b1), width, frequency, rows, lattice, 1);
+        latticeHashes(seed ^ (z1 * 0x165667b1), width, frequency, rows, lattice, 3);
+        cellOffsets(width, frequency, rows, lattice);
+        latticeRow(width, dz0, rows, lattice, 1, ROW0);
+        latticeRow(width, fz - z1, rows, lattice, 3, ROW1);
+        if (derivatives) {
+            latticeRowDz(width, rows, lattice, 1, ROW0);
+            latticeRowDz(width, rows, lattice, 3, ROW1);
+            combineRows(width, fade(dz0), fadeDerivative(dz0), amplitude, amplitude * frequency, rows);
+        } else {
+            combineValues(width, fade(dz0), amplitude, rows);
+        }
+    }
+
+    private void latticeHashes(int rowTerm, int width, float frequency, float[] rows, int[] lattice, int hashRow) {
+        for (int i = 0; i < width; i += FLOATS.length()) {
+            FloatVector fx = FloatVector.fromArray(FLOATS, rows, width * COORDS + i).mul(frequency);
+            IntVector truncated = (IntVector) fx.convert(VectorOperators.F2I, 0);
+            IntVector x0 = truncated.add(fx.sub((FloatVector) truncated.convert(VectorOperators.I2F, 0))
+                    .reinterpretAsInts().lanewise(VectorOperators.ASHR, 31));
+            x0.intoArray(lattice, i);
+            IntVector h0 = x0.mul(0x27d4eb2d).lanewise(VectorOperators.XOR, rowTerm)
+                    .lanewise(VectorOperators.ROL, 13).mul(0x85ebca6b);
+            IntVector h1 = x0.add(1).mul(0x27d4eb2d).lanewise(VectorOperators.XOR, rowTerm)
+                    .lanewise(VectorOperators.ROL, 13).mul(0x85ebca6b);
+            h0.lanewise(VectorOperators.XOR, h0.lanewise(VectorOperators.LSHR, 16)).intoArray(lattice, width * hashRow + i);
+            h1.lanewise(VectorOperators.XOR, h1.lanewise(VectorOperators.LSHR, 16)).intoArray(lattice, width * (hashRow + 1) + i);
+        }
+    }
+
+    private void cellOffsets(int width, float frequency, float[] rows, int[] lattice) {
+        for (int i = 0; i < width; i += FLOATS.length()) {
+            FloatVector fx = FloatVector.fromArray(FLOATS, rows, width * COORDS + i).mul(frequency);
+            IntVector x0 = IntVector.fromArray(INTS, lattice, i);
+            FloatVector t = fx.sub((FloatVector) x0.convert(VectorOperators.I2F, 0));
+            t.intoArray(rows, width * DX0 + i);
+            fx.sub((FloatVector) x0.add(1).convert(VectorOperators.I2F, 0)).intoArray(rows, width * DX1 + i);
+            t.mul(t).mul(t).mul(t.mul(t.mul(6.0f).sub(15.0f)).add(10.0f)).intoArray(rows, width * SX + i);
+            t.mul(30.0f).mul(t).mul(t.mul(t.sub(2.0f)).add(1.0f)).intoArray(rows, width * DSX + i);
+        }
+    }
+
+    private void latticeRow(int width, float dz, float[] rows, int[] lattice, int hashRow, int row) {
+        int dzBits = Float.floatToRawIntBits(dz);
+        for (int i = 0; i < width; i += FLOATS.length()) {
+            FloatVector dx0 = FloatVector.fromArray(FLOATS, rows, width * DX0 + i);
+            FloatVector dx1 = FloatVector.fromArray(FLOATS, rows, width * DX1 + i);
+            FloatVector sx = FloatVector.fromArray(FLOATS, rows, width * SX + i);
+            FloatVector dsx = FloatVector.fromArray(FLOATS, rows, width * DSX + i);
+            IntVector h0 = IntVector.fromArray(INTS, lattice, width * hashRow + i);
+            IntVector h1 = IntVector.fromArray(INTS, lattice, width * (hashRow + 1) + i);
+            IntVector signX0 = h0.lanewise(VectorOperators.XOR, h0.lanewise(VectorOperators.LSHR, 1)).lanewise(VectorOperators.LSHL, 31);
+            IntVector signX1 = h1.lanewise(VectorOperators.XOR, h1.lanewise(VectorOperators.LSHR, 1)).lanewise(VectorOperators.LSHL, 31);
+            FloatVector n0 = dx0.reinterpretAsInts().lanewise(VectorOperators.XOR, signX0).reinterpretAsFloats()
+                    .add(h0.and(2).lanewise(VectorOperators.LSHL, 30).lanewise(VectorOperators.XOR, dzBits).reinterpretAsFloats());
+            FloatVector n1 = dx1.reinterpretAsInts().lanewise(VectorOperators.XOR, signX1).reinterpretAsFloats()
+                    .add(h1.and(2).lanewise(VectorOperators.LSHL, 30).lanewise(VectorOperators.XOR, dzBits).reinterpretAsFloats());
+            FloatVector gx0 = ONES.lanewise(VectorOperators.XOR, signX0).reinterpretAsFloats();
+            FloatVector gx1 = ONES.lanewise(VectorOperators.XOR, signX1).reinterpretAsFloats();
+            FloatVector dn = n1.sub(n0);
+            n0.add(sx.mul(dn)).intoArray(rows, width * row + i);
+            gx0.add(sx.mul(gx1.sub(gx0))).add(dsx.mul(dn)).intoArray(rows, width * (row + 1) + i);
+        }
+    }
+
+    private void latticeRowDz(int width, float[] rows, int[] lattice, int hashRow, int row) {
+        for (int i = 0; i < width; i += FLOATS.length()) {
+            FloatVector sx = FloatVector.fromArray(FLOATS, rows, width * SX + i);
+            IntVector h0 = IntVector.fromArray(INTS, lattice, width * hashRow + i);
+            IntVector h1 = IntVector.fromArray(INTS, lattice, width * (hashRow + 1) + i);
+            FloatVector gz0 = ONES.lanewise(VectorOperators.XOR, h0.and(2).lanewise(VectorOperators.LSHL, 30)).reinterpretAsFloats();
+            FloatVector gz1 = ONES.lanewise(VectorOperators.XOR, h1.and(2).lanewise(VectorOperators.LSHL, 30)).reinterpretAsFloats();
+            gz0.add(sx.mul(gz1.sub(gz0))).intoArray(rows, width * (row + 2) + i);
+        }
+    }
+
+    private void combineRows(int width, float sz, float dsz, float amplitude, float slopeScale, float[] rows) {
+        for (int i = 0; i < width; i += FLOATS.length()) {
+            FloatVector ix0 = FloatVector.fromArray(FLOATS, rows, width * ROW0 + i);
+            FloatVector ix0Dx = FloatVector.fromArray(FLOATS, rows, width * (ROW0 + 1) + i);
+            FloatVector ix0Dz = FloatVector.fromArray(FLOATS, rows, width * (ROW0 + 2) + i);
+            FloatVector ix1 = FloatVector.fromArray(FLOATS, rows, width * ROW1 + i);
+            FloatVector ix1Dx = FloatVector.fromArray(FLOATS, rows, width * (ROW1 + 1) + i);
+            FloatVector ix1Dz = FloatVector.fromArray(FLOATS, rows, width * (ROW1 + 2) + i);
+            FloatVector di = ix1.sub(ix0);
+            FloatVector.fromArray(FLOATS, rows, width * SUM + i)
+                    .add(ix0.add(di.mul(sz)).mul(amplitude))
+                    .intoArray(rows, width * SUM + i);
+            FloatVector.fromArray(FLOATS, rows, width * SUM_DX + i)
+                    .add(ix0Dx.add(ix1Dx.sub(ix0Dx).mul(sz)).mul(slopeScale))
+                    .intoArray(rows, width * SUM_DX + i);
+            FloatVector.fromArray(FLOATS, rows, width * SUM_DZ + i)
+                    .add(ix0Dz.add(ix1Dz.sub(ix0Dz).mul(sz)).add(di.mul(dsz)).mul(slopeScale))
+                    .intoArray(rows, width * SUM_DZ + i);
+        }
+    }
+
+    private void combineValues(int width, float sz, float amplitude, float[] rows) {
+        for (int i = 0; i < width; i += FLOATS.length()) {
+            FloatVector ix0 = FloatVector.fromArray(FLOATS, rows, width * ROW0 + i);
+            FloatVector ix1 = FloatVector.fromArray(FLOATS, rows, width * ROW1 + i);
+            FloatVector.fromArray(FLOATS, rows, width * SUM + i)
+                    .add(ix0.add(ix1.sub(ix0).mul(sz)).mul(amplitude))
+                    .intoArray(rows, width * SUM + i);
+        }
+    }
+
+    private int fastFloor(float value) {
+        int i = (int) value;
+        return value < i ? i - 1 : i;
+    }
+
+    private float fade(float t) {
+        return t * t * t * (t * (t * 6 - 15) + 10);
+    }
+
+    private float fadeDerivative(float t) {
+        return 30.0f * t * t * (t * (t - 2.0f) + 1.0f);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.terrain;
+
+import java.nio.ByteBuffer;
+
+public interface VertexStaging {
+    ByteBuffer acquire(int bytes);
+
+    void release(ByteBuffer buffer);
+}
@@ -3,6 +3,10 @@
 layout(location = 0) in vec3 aPosition;
 layout(location = 1) in vec3 aNormal;
 layout(location = 2) in vec3 aColor;
+layout(location = 3) in vec3 iPosition;
+layout(location = 4) in vec2 iScale;
+layout(location = 5) in float iRotation;
+layout(location = 6) in vec4 iColor;
 
 out vec3 vNormal;
 out vec3 vWorldPos;
@@ -12,12 +16,20 @@ out vec3 vViewPos;
 uniform mat4 uProjection;
 uniform mat4 uView;
 
+const float TWO_PI = 6.28318530718;
+
 void main() {
-    vec4 worldPos = vec4(aPosition, 1.0);
-    vec4 viewPos = uView * worldPos;
-    vNormal = aNormal;
-    vWorldPos = aPosition;
+    vec3 scale = vec3(iScale.x, iScale.y, iScale.x);
+    float angle = iRotation * TWO_PI;
+    float c = cos(angle);
+    float s = sin(angle);
+    mat3 rotation = mat3(c, 0.0, -s, 0.0, 1.0, 0.0, s, 0.0, c);
+
+    vec3 worldPosition = iPosition + rotation * (aPosition * scale);
+    vec4 viewPos = uView * vec4(worldPosition, 1.0);
+    vNormal = normalize(rotation * (aNormal / scale));
+    vWorldPos = worldPosition;
     vViewPos = viewPos.xyz;
-    vColor = aColor;
+    vColor = aColor * iColor.rgb;
     gl_Position = uProjection * viewPos;
 }
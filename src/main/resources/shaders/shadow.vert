@@ -1,9 +1,24 @@
 #version 460 core
 
-layout(location = 0) in vec3 aPosition;
+layout(location = 0) in uvec3 aPosition;
+layout(location = 3) in uint aMorphHeight;
 
 uniform mat4 uLightViewProj;
+uniform vec2 uMorphCenter;
+
+layout(std430, binding = 0) readonly buffer DrawData {
+    vec4 draws[];
+};
+
+const float HEIGHT_MIN = -128.0;
+const float HEIGHT_SCALE = 128.0;
 
 void main() {
-    gl_Position = uLightViewProj * vec4(aPosition, 1.0);
+    vec4 draw = draws[gl_DrawID];
+    vec2 worldXZ = draw.xy + vec2(aPosition.xz);
+    vec2 offset = abs(worldXZ - uMorphCenter);
+    float morph = clamp((max(offset.x, offset.y) - draw.z) / max(draw.w - draw.z, 1.0e-3), 0.0, 1.0);
+    float height = mix(float(aPosition.y), float(aMorphHeight), morph) / HEIGHT_SCALE + HEIGHT_MIN;
+    vec3 position = vec3(worldXZ.x, height, worldXZ.y);
+    gl_Position = uLightViewProj * vec4(position, 1.0);
 }
@@ -84,7 +84,7 @@ void main() {
     float viewDepth = -vViewPos.z;
     int cascadeIndex = selectCascade(viewDepth);
     vec4 lightSpacePosition = uLightViewProj[cascadeIndex] * vec4(vWorldPos, 1.0);
-    float shadowFactor = sampleShadow(cascadeIndex, lightSpacePosition);
+    float shadowFactor = viewDepth < uCascadeSplits[2] ? sampleShadow(cascadeIndex, lightSpacePosition) : 1.0;
 
     vec3 litColor = albedo * diffuse * shadowFactor;
 
@@ -1,9 +1,9 @@
 #version 460 core
 
-layout(location = 0) in vec3 aPosition;
-layout(location = 1) in vec3 aNormal;
-layout(location = 2) in vec2 aUv;
-layout(location = 3) in vec3 aBiomeWeights;
+layout(location = 0) in uvec3 aPosition;
+layout(location = 1) in vec2 aNormal;
+layout(location = 2) in vec2 aBiomeWeights;
+layout(location = 3) in uint aMorphHeight;
 
 out vec3 vNormal;
 out vec3 vWorldPos;
@@ -13,14 +13,39 @@ out vec3 vBiomeWeights;
 
 uniform mat4 uProjection;
 uniform mat4 uView;
+uniform vec2 uMorphCenter;
+
+layout(std430, binding = 0) readonly buffer DrawData {
+    vec4 draws[];
+};
+
+const float HEIGHT_MIN = -128.0;
+const float HEIGHT_SCALE = 128.0;
+const float UV_SCALE = 0.1;
+
+vec3 decodeOctahedral(vec2 e) {
+    vec3 n = vec3(e.x, 1.0 - abs(e.x) - abs(e.y), e.y);
+    if (n.y < 0.0) {
+        vec2 folded = (1.0 - abs(n.zx)) * vec2(n.x >= 0.0 ? 1.0 : -1.0, n.z >= 0.0 ? 1.0 : -1.0);
+        n.x = folded.x;
+        n.z = folded.y;
+    }
+    return normalize(n);
+}
 
 void main() {
-    vec4 worldPos = vec4(aPosition, 1.0);
+    vec4 draw = draws[gl_DrawID];
+    vec2 worldXZ = draw.xy + vec2(aPosition.xz);
+    vec2 offset = abs(worldXZ - uMorphCenter);
+    float morph = clamp((max(offset.x, offset.y) - draw.z) / max(draw.w - draw.z, 1.0e-3), 0.0, 1.0);
+    float height = mix(float(aPosition.y), float(aMorphHeight), morph) / HEIGHT_SCALE + HEIGHT_MIN;
+    vec3 position = vec3(worldXZ.x, height, worldXZ.y);
+    vec4 worldPos = vec4(position, 1.0);
     vec4 viewPos = uView * worldPos;
-    vNormal = aNormal;
-    vWorldPos = aPosition;
+    vNormal = decodeOctahedral(aNormal);
+    vWorldPos = position;
     vViewPos = viewPos.xyz;
-    vUv = aUv;
-    vBiomeWeights = aBiomeWeights;
+    vUv = position.xz * UV_SCALE;
+    vBiomeWeights = vec3(aBiomeWeights, max(1.0 - aBiomeWeights.x - aBiomeWeights.y, 0.0));
     gl_Position = uProjection * viewPos;
 }
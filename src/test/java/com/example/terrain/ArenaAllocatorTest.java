@@ -0,0 +1,127 @@
+package com.example.terrain;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ArenaAllocatorTest {
+    @Test
+    void splitsTheRemainderOffTheChosenBlock() {
+        ArenaAllocator allocator = new ArenaAllocator(100);
+        assertEquals(0, allocator.allocate(30));
+        assertEquals(30, allocator.allocate(20));
+        assertEquals(50, allocator.getUsed());
+        assertEquals(50, allocator.getLargestFreeBlock());
+        assertEquals(1, allocator.getFreeBlockCount());
+    }
+
+    @Test
+    void exactFitConsumesTheWholeBlock() {
+        ArenaAllocator allocator = new ArenaAllocator(64);
+        assertEquals(0, allocator.allocate(64));
+        assertEquals(0, allocator.getFreeBlockCount());
+        assertEquals(-1, allocator.allocate(1));
+    }
+
+    @Test
+    void picksTheSmallestBlockThatFits() {
+        ArenaAllocator allocator = new ArenaAllocator(100);
+        long a = allocator.allocate(40);
+        allocator.allocate(10);
+        long c = allocator.allocate(15);
+        allocator.allocate(10);
+        allocator.free(a);
+        allocator.free(c);
+        assertEquals(c, allocator.allocate(12));
+        assertEquals(3, allocator.getFreeBlockCount());
+        assertEquals(a, allocator.allocate(30));
+    }
+
+    @Test
+    void equalSizedBlocksAreTakenInAddressOrder() {
+        ArenaAllocator allocator = new ArenaAllocator(100);
+        long a = allocator.allocate(10);
+        allocator.allocate(5);
+        long c = allocator.allocate(10);
+        allocator.allocate(5);
+        allocator.free(c);
+        allocator.free(a);
+        assertEquals(70, allocator.getLargestFreeBlock());
+        assertEquals(a, allocator.allocate(10));
+        assertEquals(c, allocator.allocate(10));
+        assertEquals(30, allocator.allocate(70));
+        assertEquals(0, allocator.getLargestFreeBlock());
+    }
+
+    @Test
+    void coalescesWithPreviousNeighbour() {
+        ArenaAllocator allocator = new ArenaAllocator(100);
+        long a = allocator.allocate(10);
+        long b = allocator.allocate(10);
+        allocator.allocate(80);
+        allocator.free(a);
+        allocator.free(b);
+        assertEquals(1, allocator.getFreeBlockCount());
+        assertEquals(20, allocator.getLargestFreeBlock());
+    }
+
+    @Test
+    void coalescesWithNextNeighbour() {
+        ArenaAllocator allocator = new ArenaAllocator(100);
+        allocator.allocate(10);
+        long b = allocator.allocate(10);
+        long c = allocator.allocate(10);
+        allocator.free(c);
+        assertEquals(1, allocator.getFreeBlockCount());
+        allocator.free(b);
+        assertEquals(1, allocator.getFreeBlockCount());
+        assertEquals(90, allocator.getLargestFreeBlock());
+    }
+
+    @Test
+    void coalescesWithBothNeighbours() {
+        ArenaAllocator allocator = new ArenaAllocator(100);
+        long a = allocator.allocate(10);
+        long b = allocator.allocate(10);
+        long c = allocator.allocate(10);
+        allocator.allocate(70);
+        allocator.free(a);
+        allocator.free(c);
+        assertEquals(2, allocator.getFreeBlockCount());
+        allocator.free(b);
+        assertEquals(1, allocator.getFreeBlockCount());
+        assertEquals(30, allocator.getLargestFreeBlock());
+        assertEquals(0, allocator.allocate(30));
+    }
+
+    @Test
+    void freeingEverythingRestoresOneBlock() {
+        ArenaAllocator allocator = new ArenaAllocator(1000);
+        long[] offsets = new long[10];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = allocator.allocate(7 + i * 3);
+        }
+        for (int i = 0; i < offsets.length; i += 2) {
+            allocator.free(offsets[i]);
+        }
+        for (int i = 1; i < offsets.length; i += 2) {
+            allocator.free(offsets[i]);
+        }
+        assertEquals(0, allocator.getUsed());
+        assertEquals(1, allocator.getFreeBlockCount());
+        assertEquals(1000, allocator.getLargestFreeBlock());
+    }
+
+    @Test
+    void rejectsInvalidRequests() {
+        assertThrows(IllegalArgumentException.class, () -> new ArenaAllocator(0));
+        ArenaAllocator allocator = new ArenaAllocator(10);
+        assertEquals(-1, allocator.allocate(0));
+        assertEquals(-1, allocator.allocate(11));
+        long offset = allocator.allocate(5);
+        allocator.free(offset);
+        assertThrows(IllegalStateException.class, () -> allocator.free(offset));
+        assertThrows(IllegalStateException.class, () -> allocator.free(3));
+    }
+}
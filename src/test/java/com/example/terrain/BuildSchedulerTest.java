@@ -0,0 +1,45 @@
+package com.example.terrain;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BuildSchedulerTest {
+    @Test
+    void failedTaskIsRequeuedUntilAttemptCap() {
+        BuildScheduler scheduler = new BuildScheduler(64);
+        scheduler.submit(1, 2, 0, () -> {
+        });
+        for (int attempt = 1; attempt < 3; attempt++) {
+            BuildScheduler.BuildTask task = scheduler.poll();
+            assertEquals(attempt, task.getAttempt());
+            assertTrue(scheduler.fail(task));
+        }
+        BuildScheduler.BuildTask last = scheduler.poll();
+        assertEquals(3, last.getAttempt());
+        assertFalse(scheduler.fail(last));
+        assertNull(scheduler.poll());
+    }
+
+    @Test
+    void cancelledOrResubmittedTaskIsNotRequeued() {
+        BuildScheduler scheduler = new BuildScheduler(64);
+        scheduler.submit(1, 2, 0, () -> {
+        });
+        BuildScheduler.BuildTask cancelled = scheduler.poll();
+        scheduler.cancel(1, 2);
+        assertFalse(scheduler.fail(cancelled));
+        assertEquals(0, scheduler.pendingCount());
+
+        scheduler.submit(3, 4, 0, () -> {
+        });
+        BuildScheduler.BuildTask stale = scheduler.poll();
+        scheduler.submit(3, 4, 1, () -> {
+        });
+        assertFalse(scheduler.fail(stale));
+        assertEquals(1, scheduler.poll().getLod());
+    }
+}
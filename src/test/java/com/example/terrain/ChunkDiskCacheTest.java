@@ -0,0 +1,130 @@
+package com.example.terrain;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChunkDiskCacheTest {
+    private static final int CHUNK_SIZE = 16;
+
+    @TempDir
+    Path root;
+
+    @Test
+    void rewritingSameSlotDoesNotGrowRegion() throws IOException {
+        TerrainGenerator generator = new TerrainGenerator(5);
+        ChunkDiskCache cache = new ChunkDiskCache(root, generator, CHUNK_SIZE);
+        cache.store(3, 4, heightfield(9, 1.0f));
+        long size = regionSize();
+        for (int i = 0; i < 10; i++) {
+            cache.store(3, 4, heightfield(9, 2.0f + i));
+        }
+        assertEquals(size, regionSize());
+        assertEquals(11.0f, cache.load(3, 4, 0).heights()[0]);
+        cache.close();
+    }
+
+    @Test
+    void reopeningCompactsDeadEntries() throws IOException {
+        TerrainGenerator generator = new TerrainGenerator(5);
+        ChunkDiskCache cache = new ChunkDiskCache(root, generator, CHUNK_SIZE);
+        cache.store(0, 0, heightfield(5, 1.0f));
+        cache.store(1, 0, heightfield(9, 2.0f));
+        long compactSize = regionSize();
+        cache.store(0, 0, heightfield(9, 3.0f));
+        long grownSize = regionSize();
+        assertTrue(grownSize > compactSize);
+        cache.close();
+
+        ChunkDiskCache reopened = new ChunkDiskCache(root, generator, CHUNK_SIZE);
+        ChunkHeightfield first = reopened.load(0, 0, 0);
+        ChunkHeightfield second = reopened.load(1, 0, 0);
+        assertEquals(grownSize - entryBytes(5), regionSize());
+        assertArrayEquals(heightfield(9, 3.0f).heights(), first.heights());
+        assertArrayEquals(heightfield(9, 2.0f).heights(), second.heights());
+        assertArrayEquals(heightfield(9, 2.0f).slopes(), second.slopes());
+        reopened.close();
+    }
+
+    @Test
+    void heightsRoundTripAtVertexPrecision() {
+        TerrainGenerator generator = new TerrainGenerator(5);
+        ChunkDiskCache cache = new ChunkDiskCache(root, generator, CHUNK_SIZE);
+        ChunkHeightfield stored = heightfield(9, 0.0f);
+        float[] heights = stored.heights();
+        for (int i = 0; i < heights.length; i++) {
+            heights[i] = -100.0f + i * 3.3371f;
+        }
+        cache.store(2, 2, stored);
+        ChunkHeightfield loaded = cache.load(2, 2, 0);
+        for (int i = 0; i < heights.length; i++) {
+            assertEquals(TerrainVertexFormat.encodeHeight(heights[i]), TerrainVertexFormat.encodeHeight(loaded.heights()[i]));
+            assertEquals(heights[i], loaded.heights()[i], 0.5f / TerrainVertexFormat.HEIGHT_SCALE);
+        }
+        assertArrayEquals(stored.slopes(), loaded.slopes());
+        assertArrayEquals(stored.biomeWeights(), loaded.biomeWeights(), 1.0f / 65535.0f);
+        cache.close();
+    }
+
+    @Test
+    void purgesOnlyUnlockedDirectoriesWithAnOtherFingerprint() throws IOException {
+        TerrainGenerator generator = new TerrainGenerator(5);
+        String fingerprint = String.format("%016x", generator.getFingerprint());
+        Path stale = createDirectory(String.format("5-%016x-%d", ~generator.getFingerprint(), CHUNK_SIZE));
+        Path locked = createDirectory(String.format("5-%016x-%d", generator.getFingerprint() + 1, CHUNK_SIZE));
+        Path otherChunkSize = createDirectory("5-" + fingerprint + "-" + (CHUNK_SIZE * 2));
+        Path otherSeed = createDirectory(String.format("6-%016x-%d", ~generator.getFingerprint(), CHUNK_SIZE));
+        try (FileChannel channel = FileChannel.open(locked.resolve(".lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock ignored = channel.lock()) {
+            ChunkDiskCache cache = new ChunkDiskCache(root, generator, CHUNK_SIZE);
+            cache.close();
+        }
+        assertFalse(Files.exists(stale));
+        assertTrue(Files.exists(locked.resolve("r.0.0.0.bin")));
+        assertTrue(Files.exists(otherChunkSize.resolve("r.0.0.0.bin")));
+        assertTrue(Files.exists(otherSeed.resolve("r.0.0.0.bin")));
+    }
+
+    private Path createDirectory(String name) throws IOException {
+        Path directory = Files.createDirectories(root.resolve(name));
+        Files.write(directory.resolve("r.0.0.0.bin"), new byte[]{1, 2, 3});
+        return directory;
+    }
+
+    private static ChunkHeightfield heightfield(int vertsPerSide, float base) {
+        int count = vertsPerSide * vertsPerSide;
+        float[] heights = new float[count];
+        float[] weights = new float[count * 3];
+        float[] slopes = new float[count * 2];
+        for (int i = 0; i < count; i++) {
+            heights[i] = base + i;
+            weights[i * 3] = 1.0f;
+            slopes[i * 2] = base * 0.5f;
+            slopes[i * 2 + 1] = -i;
+        }
+        return new ChunkHeightfield(0, CHUNK_SIZE / (vertsPerSide - 1), vertsPerSide, heights, weights, slopes);
+    }
+
+    private static long entryBytes(int vertsPerSide) {
+        return 2 * Integer.BYTES + (long) vertsPerSide * vertsPerSide * (4 * Short.BYTES + 2 * Float.BYTES);
+    }
+
+    private long regionSize() throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            Path region = files.filter(path -> path.getFileName().toString().startsWith("r.0.")).findFirst().orElseThrow();
+            return Files.size(region);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.terrain;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChunkMeshBuilderTest {
+    private static final int CHUNK_SIZE = 64;
+
+    private final BufferPool pool = new BufferPool(1 << 20);
+    private final ChunkMeshBuilder builder = new ChunkMeshBuilder(new TerrainGenerator(1337), CHUNK_SIZE, pool);
+
+    @Test
+    void neighboursAlongXShareEdgeSlopesAndNormals() {
+        for (int lod = 0; lod <= 2; lod++) {
+            for (int[] chunk : new int[][]{{0, 0}, {-1, 3}, {5, -2}}) {
+                ChunkHeightfield left = builder.sampleHeightfield(chunk[0], chunk[1], lod);
+                ChunkHeightfield right = builder.sampleHeightfield(chunk[0] + 1, chunk[1], lod);
+                int last = left.vertsPerSide() - 1;
+                assertEdgeMatches(chunk[0], chunk[1], left, right, last, 0, 0, 0, 0, 1);
+            }
+        }
+    }
+
+    @Test
+    void neighboursAlongZShareEdgeSlopesAndNormals() {
+        for (int lod = 0; lod <= 2; lod++) {
+            for (int[] chunk : new int[][]{{0, 0}, {3, -1}, {-2, 5}}) {
+                ChunkHeightfield near = builder.sampleHeightfield(chunk[0], chunk[1], lod);
+                ChunkHeightfield far = builder.sampleHeightfield(chunk[0], chunk[1] + 1, lod);
+                int last = near.vertsPerSide() - 1;
+                assertEdgeMatches(chunk[0], chunk[1], near, far, 0, last, 0, 0, 1, 0);
+            }
+        }
+    }
+
+    @Test
+    void heightsOnlyTilesMatchTerrainHeights() {
+        for (int[] chunk : new int[][]{{0, 0}, {-3, 2}}) {
+            ChunkHeightfield terrain = builder.sampleHeightfield(chunk[0], chunk[1], 0);
+            ChunkHeightfield tile = builder.sampleHeights(chunk[0], chunk[1]);
+            assertTrue(tile.isHeightsOnly());
+            assertEquals(terrain.vertsPerSide(), tile.vertsPerSide());
+            for (int i = 0; i < terrain.heights().length; i++) {
+                assertEquals(Float.floatToRawIntBits(terrain.heights()[i]), Float.floatToRawIntBits(tile.heights()[i]),
+                        "height " + i + " chunk " + chunk[0] + "," + chunk[1]);
+            }
+        }
+    }
+
+    private void assertEdgeMatches(int chunkX, int chunkZ, ChunkHeightfield first, ChunkHeightfield second,
+                                   int firstX, int firstZ, int secondX, int secondZ, int stepX, int stepZ) {
+        ChunkMeshData firstMesh = builder.build(chunkX, chunkZ, first);
+        ChunkMeshData secondMesh = builder.build(chunkX + (stepX == 0 ? 1 : 0), chunkZ + (stepZ == 0 ? 1 : 0), second);
+        int vertsPerSide = first.vertsPerSide();
+        try {
+            for (int i = 0; i < vertsPerSide; i++) {
+                int a = (firstZ + i * stepZ) * vertsPerSide + firstX + i * stepX;
+                int b = (secondZ + i * stepZ) * vertsPerSide + secondX + i * stepX;
+                String where = "lod " + first.lod() + " chunk " + chunkX + "," + chunkZ + " edge vertex " + i;
+                assertEquals(first.heights()[a], second.heights()[b], 1.0e-5f, "height " + where);
+                assertEquals(first.slopes()[a * 2], second.slopes()[b * 2], 1.0e-5f, "slope x " + where);
+                assertEquals(first.slopes()[a * 2 + 1], second.slopes()[b * 2 + 1], 1.0e-5f, "slope z " + where);
+                assertEquals(normal(firstMesh.vertices(), a), normal(secondMesh.vertices(), b), "normal " + where);
+            }
+        } finally {
+            pool.release(firstMesh.vertices());
+            pool.release(secondMesh.vertices());
+        }
+    }
+
+    private static int normal(ByteBuffer vertices, int vertex) {
+        return vertices.getShort(vertex * TerrainVertexFormat.STRIDE + TerrainVertexFormat.NORMAL_OFFSET) & 0xffff;
+    }
+}
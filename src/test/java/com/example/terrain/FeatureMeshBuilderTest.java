@@ -0,0 +1,176 @@
+package com.example.terrain;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FeatureMeshBuilderTest {
+    private static final int CHUNK_SIZE = 64;
+    private static final int CHUNK_X = -2;
+    private static final int CHUNK_Z = 3;
+    private static final float TWO_PI = (float) (Math.PI * 2.0);
+
+    private final HeightTileCache tiles = new StubTileCache(planeTile());
+
+    @Test
+    void buildIsDeterministicPerSeed() {
+        FeatureLodData first = new FeatureMeshBuilder(tiles, CHUNK_SIZE, 1337).build(CHUNK_X, CHUNK_Z);
+        FeatureLodData again = new FeatureMeshBuilder(tiles, CHUNK_SIZE, 1337).build(CHUNK_X, CHUNK_Z);
+        FeatureLodData other = new FeatureMeshBuilder(tiles, CHUNK_SIZE, 7).build(CHUNK_X, CHUNK_Z);
+
+        assertEquals(first.near().instances(), again.near().instances());
+        assertEquals(first.far().instances(), again.far().instances());
+        assertNotEquals(first.near().instances(), other.near().instances());
+    }
+
+    @Test
+    void instancesStayInsideTheirChunkAndPrototypeRanges() {
+        FeatureLodData data = new FeatureMeshBuilder(tiles, CHUNK_SIZE, 1337).build(CHUNK_X, CHUNK_Z);
+        FeatureInstanceData near = data.near();
+        FeatureInstanceData far = data.far();
+
+        int trees = near.count(FeaturePrototype.TRUNK);
+        assertEquals(trees, near.count(FeaturePrototype.CANOPY));
+        assertEquals(trees, far.count(FeaturePrototype.BILLBOARD));
+        assertEquals(0, near.count(FeaturePrototype.BILLBOARD));
+        assertEquals(trees, far.totalCount());
+        assertCountIn(near, FeaturePrototype.GRASS, cells(4));
+        assertCountIn(near, FeaturePrototype.ROCK, cells(12));
+        assertCountIn(near, FeaturePrototype.TRUNK, cells(20));
+        assertEquals(near.totalCount() * FeatureInstanceFormat.STRIDE, near.instances().remaining());
+
+        ByteBuffer instances = near.instances().duplicate().order(ByteOrder.nativeOrder());
+        for (FeaturePrototype prototype : FeaturePrototype.values()) {
+            for (int i = 0; i < near.count(prototype); i++) {
+                assertInstance(prototype, instances);
+            }
+        }
+        ByteBuffer billboards = far.instances().duplicate().order(ByteOrder.nativeOrder());
+        for (int i = 0; i < trees; i++) {
+            assertInstance(FeaturePrototype.BILLBOARD, billboards);
+        }
+    }
+
+    @Test
+    void instanceEncodingRoundTrips() {
+        ByteBuffer buffer = ByteBuffer.allocate(FeatureInstanceFormat.STRIDE * 4).order(ByteOrder.nativeOrder());
+        float[] scales = {0.4f, 1.0f, 3.7f, 0.25f};
+        float[] rotations = {0.0f, 1.234f, TWO_PI, -0.5f};
+        float[] color = {0.35f, 0.22f, 0.1f};
+        for (int i = 0; i < scales.length; i++) {
+            FeatureInstanceFormat.put(buffer, -130.5f + i, 12.25f, 200.5f, scales[i], scales[i] * 2.0f, rotations[i], color);
+        }
+        assertEquals(buffer.capacity(), buffer.position());
+        buffer.flip();
+
+        for (int i = 0; i < scales.length; i++) {
+            int base = i * FeatureInstanceFormat.STRIDE;
+            assertEquals(-130.5f + i, buffer.getFloat(base + FeatureInstanceFormat.POSITION_OFFSET));
+            assertEquals(12.25f, buffer.getFloat(base + FeatureInstanceFormat.POSITION_OFFSET + 4));
+            assertEquals(200.5f, buffer.getFloat(base + FeatureInstanceFormat.POSITION_OFFSET + 8));
+            float scaleXZ = Float.float16ToFloat(buffer.getShort(base + FeatureInstanceFormat.SCALE_OFFSET));
+            float scaleY = Float.float16ToFloat(buffer.getShort(base + FeatureInstanceFormat.SCALE_OFFSET + 2));
+            assertEquals(scales[i], scaleXZ, scales[i] * 0x1p-11f);
+            assertEquals(scales[i] * 2.0f, scaleY, scales[i] * 2.0f * 0x1p-11f);
+
+            float rotation = FeatureInstanceFormat.decodeRotation(buffer.getShort(base + FeatureInstanceFormat.ROTATION_OFFSET));
+            float expected = rotations[i] - TWO_PI * (float) Math.floor(rotations[i] / TWO_PI);
+            float error = Math.abs(rotation - expected);
+            assertTrue(Math.min(error, TWO_PI - error) <= TWO_PI / 65536.0f, "rotation " + rotations[i] + " -> " + rotation);
+            assertTrue(rotation >= 0.0f && rotation < TWO_PI);
+            assertEquals(0, buffer.getShort(base + FeatureInstanceFormat.ROTATION_OFFSET + 2));
+
+            for (int c = 0; c < 3; c++) {
+                assertEquals(Math.round(color[c] * 255.0f), buffer.get(base + FeatureInstanceFormat.COLOR_OFFSET + c) & 0xff);
+            }
+            assertEquals(0xff, buffer.get(base + FeatureInstanceFormat.COLOR_OFFSET + 3) & 0xff);
+        }
+    }
+
+    private static void assertInstance(FeaturePrototype prototype, ByteBuffer buffer) {
+        float x = buffer.getFloat();
+        float y = buffer.getFloat();
+        float z = buffer.getFloat();
+        float scaleXZ = Float.float16ToFloat(buffer.getShort());
+        float scaleY = Float.float16ToFloat(buffer.getShort());
+        float rotation = FeatureInstanceFormat.decodeRotation(buffer.getShort());
+        buffer.getShort();
+        buffer.getInt();
+
+        float localX = x - CHUNK_X * CHUNK_SIZE;
+        float localZ = z - CHUNK_Z * CHUNK_SIZE;
+        String where = prototype + " at " + x + "," + z;
+        assertTrue(localX > 0.0f && localX < CHUNK_SIZE, "x " + where);
+        assertTrue(localZ > 0.0f && localZ < CHUNK_SIZE, "z " + where);
+        assertEquals(0.5f, localX - (float) Math.floor(localX), "x " + where);
+        assertEquals(0.5f, localZ - (float) Math.floor(localZ), "z " + where);
+        assertTrue(rotation >= 0.0f && rotation < TWO_PI, "rotation " + where);
+
+        float ground = plane(localX, localZ);
+        switch (prototype) {
+            case GRASS -> {
+                assertEquals(ground, y, 1.0e-3f, "height " + where);
+                assertEquals(1.0f, scaleXZ);
+                assertEquals(1.0f, scaleY);
+            }
+            case ROCK -> {
+                assertTrue(scaleXZ >= 0.4f && scaleXZ <= 1.0f, "scale " + where);
+                assertEquals(scaleXZ, scaleY);
+                assertEquals(ground + scaleXZ * 0.5f, y, 1.0e-3f, "height " + where);
+            }
+            case TRUNK -> {
+                assertEquals(0.25f, scaleXZ);
+                assertTrue(scaleY >= 2.5f && scaleY <= 4.0f, "trunk height " + where);
+                assertEquals(ground + scaleY * 0.5f, y, 2.0e-3f, "height " + where);
+            }
+            case CANOPY -> assertTrue(y >= ground + 2.5f && y <= ground + 4.0f, "canopy height " + where);
+            case BILLBOARD -> assertTrue(y >= ground + 1.75f && y <= ground + 2.8f, "billboard height " + where);
+        }
+    }
+
+    private static void assertCountIn(FeatureInstanceData data, FeaturePrototype prototype, int max) {
+        int count = data.count(prototype);
+        assertTrue(count > 0 && count <= max, prototype + " count " + count + " outside 1.." + max);
+    }
+
+    private static int cells(int spacing) {
+        int perSide = (CHUNK_SIZE + spacing - 1) / spacing;
+        return perSide * perSide;
+    }
+
+    private static float plane(float localX, float localZ) {
+        return 10.0f + localX * 0.25f - localZ * 0.5f;
+    }
+
+    private static ChunkHeightfield planeTile() {
+        int vertsPerSide = CHUNK_SIZE + 1;
+        float[] heights = new float[vertsPerSide * vertsPerSide];
+        for (int z = 0; z < vertsPerSide; z++) {
+            for (int x = 0; x < vertsPerSide; x++) {
+                heights[z * vertsPerSide + x] = plane(x, z);
+            }
+        }
+        return new ChunkHeightfield(0, 1, vertsPerSide, heights, new float[heights.length * 3], new float[0]);
+    }
+
+    private static final class StubTileCache extends HeightTileCache {
+        private final ChunkHeightfield tile;
+
+        StubTileCache(ChunkHeightfield tile) {
+            super(new TerrainGenerator(1), CHUNK_SIZE, 0);
+            this.tile = tile;
+        }
+
+        @Override
+        public ChunkHeightfield get(int chunkX, int chunkZ) {
+            assertEquals(CHUNK_X, chunkX);
+            assertEquals(CHUNK_Z, chunkZ);
+            return tile;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.terrain;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GenerationExecutorTest {
+    private final GenerationExecutor executor = new GenerationExecutor(1);
+    private final BuildScheduler scheduler = new BuildScheduler(64);
+    private final UploadStage<Object> uploads = new UploadStage<>();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void errorsAreRetriedAndKeepTheWorkerAlive() throws InterruptedException {
+        executor.register("test", scheduler, 1, uploads, 4);
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch built = new CountDownLatch(1);
+        scheduler.submit(0, 0, 0, () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new AssertionError("simulated builder failure");
+            }
+            built.countDown();
+        });
+        assertTrue(built.await(5, TimeUnit.SECONDS));
+        assertEquals(3, attempts.get());
+
+        CountDownLatch next = new CountDownLatch(1);
+        scheduler.submit(1, 0, 0, next::countDown);
+        assertTrue(next.await(5, TimeUnit.SECONDS));
+        assertEquals(2, executor.getStats().get(0).failed());
+    }
+
+    @Test
+    void drainingUploadsWakesBlockedWorkers() throws InterruptedException {
+        executor.register("test", scheduler, 1, uploads, 1);
+        uploads.offer(0, 0, 1, new Object());
+        CountDownLatch built = new CountDownLatch(1);
+        scheduler.submit(0, 0, 0, built::countDown);
+        assertFalse(built.await(100, TimeUnit.MILLISECONDS));
+        uploads.drain(0, 0, new UploadBudget(1 << 20, 1_000_000), item -> UploadStage.Result.UPLOADED);
+        assertTrue(built.await(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.terrain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndexBufferRegistryTest {
+    private static final int[] SIZES = {3, 5, 9, 17, 33, 65};
+
+    @Test
+    void unstitchedGroupsTileTheWholeGrid() {
+        for (int vertsPerSide : SIZES) {
+            assertTiles(vertsPerSide, new int[IndexBufferRegistry.EDGE_COUNT]);
+        }
+    }
+
+    @Test
+    void everyCollapseCombinationTilesTheGridWithoutFlips() {
+        Random random = new Random(3);
+        for (int vertsPerSide : SIZES) {
+            int maxCollapse = IndexBufferRegistry.maxCollapse(vertsPerSide);
+            for (int trial = 0; trial < 64; trial++) {
+                int[] collapse = new int[IndexBufferRegistry.EDGE_COUNT];
+                for (int edge = 0; edge < collapse.length; edge++) {
+                    collapse[edge] = random.nextInt(maxCollapse + 1);
+                }
+                assertTiles(vertsPerSide, collapse);
+            }
+        }
+    }
+
+    @Test
+    void collapsedEdgeOnlyUsesTheCoarserNeighboursVertices() {
+        for (int vertsPerSide : SIZES) {
+            int last = vertsPerSide - 1;
+            for (int collapse = 1; collapse <= IndexBufferRegistry.maxCollapse(vertsPerSide); collapse++) {
+                int step = 1 << collapse;
+                for (int edge = 0; edge < IndexBufferRegistry.EDGE_COUNT; edge++) {
+                    for (int index : IndexBufferRegistry.groupIndices(vertsPerSide, edge, collapse)) {
+                        int x = index % vertsPerSide;
+                        int z = index / vertsPerSide;
+                        boolean onEdge = switch (edge) {
+                            case IndexBufferRegistry.EDGE_NEG_X -> x == 0;
+                            case IndexBufferRegistry.EDGE_POS_X -> x == last;
+                            case IndexBufferRegistry.EDGE_NEG_Z -> z == 0;
+                            default -> z == last;
+                        };
+                        int along = edge <= IndexBufferRegistry.EDGE_POS_X ? z : x;
+                        if (onEdge) {
+                            assertEquals(0, along % step, "size " + vertsPerSide + " edge " + edge + " collapse " + collapse);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void groupsAreCachedPerVariant() {
+        assertArrayEquals(IndexBufferRegistry.groupIndices(9, IndexBufferRegistry.EDGE_POS_Z, 2),
+                IndexBufferRegistry.groupIndices(9, IndexBufferRegistry.EDGE_POS_Z, 2));
+        assertEquals(3, IndexBufferRegistry.maxCollapse(9));
+        assertEquals(6, IndexBufferRegistry.maxCollapse(65));
+    }
+
+    private static void assertTiles(int vertsPerSide, int[] collapse) {
+        long doubledArea = area(vertsPerSide, IndexBufferRegistry.groupIndices(vertsPerSide, IndexBufferRegistry.INTERIOR, 0));
+        for (int edge = 0; edge < IndexBufferRegistry.EDGE_COUNT; edge++) {
+            doubledArea += area(vertsPerSide, IndexBufferRegistry.groupIndices(vertsPerSide, edge, collapse[edge]));
+        }
+        long last = vertsPerSide - 1;
+        assertEquals(2 * last * last, doubledArea, "size " + vertsPerSide);
+    }
+
+    private static long area(int vertsPerSide, int[] indices) {
+        assertEquals(0, indices.length % 3);
+        long total = 0;
+        for (int i = 0; i < indices.length; i += 3) {
+            int ax = indices[i] % vertsPerSide;
+            int az = indices[i] / vertsPerSide;
+            int cross = (indices[i + 1] % vertsPerSide - ax) * (indices[i + 2] / vertsPerSide - az)
+                    - (indices[i + 1] / vertsPerSide - az) * (indices[i + 2] % vertsPerSide - ax);
+            assertTrue(cross < 0, "flipped or degenerate triangle in a " + vertsPerSide + " grid");
+            total -= cross;
+        }
+        return total;
+    }
+}
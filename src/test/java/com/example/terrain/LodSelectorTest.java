@@ -0,0 +1,100 @@
+package com.example.terrain;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LodSelectorTest {
+    private static final int CHUNK_SIZE = 64;
+    private static final int[] BANDS = {2, 4, 8, 16};
+    private static final float EPSILON = 1.0e-4f;
+
+    private final LodSelector selector = new LodSelector(CHUNK_SIZE, BANDS);
+
+    @Test
+    void selectsLodByChebyshevChunkDistance() {
+        assertEquals(0, selector.selectLod(0, 0));
+        assertEquals(0, selector.selectLod(2, -1));
+        assertEquals(0, selector.selectLod(-2, 2));
+        assertEquals(1, selector.selectLod(3, 0));
+        assertEquals(1, selector.selectLod(-4, 4));
+        assertEquals(2, selector.selectLod(0, -5));
+        assertEquals(2, selector.selectLod(8, 8));
+        assertEquals(3, selector.selectLod(9, 0));
+        assertEquals(3, selector.selectLod(-100, 3));
+    }
+
+    @Test
+    void morphRangesFitInsideTheirBands() {
+        for (int lod = 0; lod < BANDS.length - 1; lod++) {
+            float start = selector.morphStart(lod);
+            float end = selector.morphEnd(lod);
+            assertTrue(start < end, "empty morph range at lod " + lod);
+            assertTrue(end <= BANDS[lod] * CHUNK_SIZE, "morph ends after the band switches at lod " + lod);
+            if (lod > 0) {
+                assertTrue(start >= (BANDS[lod - 1] + 1) * CHUNK_SIZE, "morph starts before the finer band ends at lod " + lod);
+            }
+        }
+        assertEquals(Float.MAX_VALUE, selector.morphStart(BANDS.length - 1));
+        assertEquals(Float.MAX_VALUE, selector.morphEnd(BANDS.length - 1));
+    }
+
+    @Test
+    void morphIsCompleteWheneverAChunkSwitchesLod() {
+        int reach = BANDS[BANDS.length - 1] + 2;
+        for (int border = -3; border <= 3; border++) {
+            for (float cameraZ = -CHUNK_SIZE; cameraZ < CHUNK_SIZE; cameraZ += CHUNK_SIZE / 8.0f) {
+                float cameraX = border * CHUNK_SIZE;
+                int cameraChunkZ = (int) Math.floor(cameraZ / CHUNK_SIZE);
+                for (int chunkZ = cameraChunkZ - reach; chunkZ <= cameraChunkZ + reach; chunkZ++) {
+                    for (int chunkX = border - reach; chunkX <= border + reach; chunkX++) {
+                        int before = selector.selectLod(chunkX - (border - 1), chunkZ - cameraChunkZ);
+                        int after = selector.selectLod(chunkX - border, chunkZ - cameraChunkZ);
+                        if (before != after) {
+                            assertSeamless(Math.min(before, after), chunkX, chunkZ, cameraX, cameraZ);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void residentVertexCountMatchesTheWindow() {
+        for (int renderDistance : new int[]{0, 1, 2, 3, 9, 16, 24}) {
+            long expected = 0;
+            for (int dz = -renderDistance; dz <= renderDistance; dz++) {
+                for (int dx = -renderDistance; dx <= renderDistance; dx++) {
+                    int side = CHUNK_SIZE / LodSelector.stepForLod(selector.selectLod(dx, dz)) + 1;
+                    expected += (long) side * side;
+                }
+            }
+            assertEquals(expected, selector.residentVertexCount(renderDistance), "render distance " + renderDistance);
+        }
+    }
+
+    @Test
+    void rejectsBandsWithoutRoomToMorph() {
+        assertThrows(IllegalArgumentException.class, () -> new LodSelector(CHUNK_SIZE, new int[]{2, 3, 8}));
+        assertThrows(IllegalArgumentException.class, () -> new LodSelector(CHUNK_SIZE, new int[]{0, 4}));
+    }
+
+    private void assertSeamless(int fine, int chunkX, int chunkZ, float cameraX, float cameraZ) {
+        int coarse = fine + 1;
+        for (int z = 0; z <= CHUNK_SIZE; z += 4) {
+            for (int x = 0; x <= CHUNK_SIZE; x += 4) {
+                float worldX = chunkX * CHUNK_SIZE + x;
+                float worldZ = chunkZ * CHUNK_SIZE + z;
+                float fineMorph = selector.morphFactor(fine, cameraX, cameraZ, worldX, worldZ);
+                float coarseMorph = selector.morphFactor(coarse, cameraX, cameraZ, worldX, worldZ);
+                String where = "chunk " + chunkX + "," + chunkZ + " lod " + fine + " camera " + cameraX + "," + cameraZ;
+                assertEquals(1.0f, fineMorph, EPSILON, "fine mesh not fully morphed at switch, " + where);
+                if (coarse < BANDS.length - 1) {
+                    assertEquals(0.0f, coarseMorph, EPSILON, "coarse mesh already morphing at switch, " + where);
+                }
+            }
+        }
+    }
+}
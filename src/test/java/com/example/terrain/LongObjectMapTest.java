@@ -0,0 +1,131 @@
+package com.example.terrain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongObjectMapTest {
+    @Test
+    void putGetAndRemove() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        assertNull(map.put(5L, "a"));
+        assertNull(map.put(-7L, "b"));
+        assertEquals("a", map.put(5L, "c"));
+        assertEquals(2, map.size());
+        assertEquals("c", map.get(5L));
+        assertEquals("b", map.get(-7L));
+        assertNull(map.get(6L));
+        assertEquals("b", map.remove(-7L));
+        assertNull(map.remove(-7L));
+        assertFalse(map.containsKey(-7L));
+        assertEquals(1, map.size());
+        assertThrows(NullPointerException.class, () -> map.put(1L, null));
+    }
+
+    @Test
+    void backwardShiftKeepsCollidingKeysReachable() {
+        LongObjectMap<Long> map = new LongObjectMap<>(8);
+        long[] colliding = collidingKeys(6);
+        for (long key : colliding) {
+            map.put(key, key);
+        }
+        for (int removed = 0; removed < colliding.length; removed++) {
+            assertEquals(colliding[removed], map.remove(colliding[removed]));
+            for (int i = 0; i < colliding.length; i++) {
+                assertEquals(i > removed ? Long.valueOf(colliding[i]) : null, map.get(colliding[i]), "key " + i + " after removing " + removed);
+            }
+        }
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    void removingFromTheMiddleOfAClusterKeepsLaterKeys() {
+        LongObjectMap<Long> map = new LongObjectMap<>(8);
+        long[] colliding = collidingKeys(5);
+        for (long key : colliding) {
+            map.put(key, key);
+        }
+        map.remove(colliding[2]);
+        map.remove(colliding[0]);
+        assertEquals(colliding[1], map.get(colliding[1]));
+        assertEquals(colliding[3], map.get(colliding[3]));
+        assertEquals(colliding[4], map.get(colliding[4]));
+        map.put(colliding[2], -1L);
+        assertEquals(-1L, map.get(colliding[2]));
+        assertEquals(4, map.size());
+    }
+
+    @Test
+    void resizesAndIteratesDenseValuesAfterRemovals() {
+        LongObjectMap<Long> map = new LongObjectMap<>(1);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(11);
+        for (int step = 0; step < 20_000; step++) {
+            long key = random.nextInt(2_000) - 1_000L;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                long value = random.nextLong();
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < map.size(); i++) {
+            long key = map.keyAt(i);
+            assertTrue(seen.add(key));
+            assertEquals(expected.get(key), map.valueAt(i));
+        }
+        int iterated = 0;
+        for (Long value : map.values()) {
+            assertTrue(expected.containsValue(value));
+            iterated++;
+        }
+        assertEquals(expected.size(), iterated);
+        for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+
+    @Test
+    void clearEmptiesTheMapForReuse() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        for (long key = 0; key < 100; key++) {
+            map.put(key, "v" + key);
+        }
+        map.clear();
+        assertEquals(0, map.size());
+        assertNull(map.get(42L));
+        map.put(42L, "again");
+        assertEquals("again", map.get(42L));
+        assertEquals(1, map.size());
+    }
+
+    private static long[] collidingKeys(int count) {
+        int mask = 15;
+        long[] keys = new long[count];
+        int found = 0;
+        int home = -1;
+        for (long candidate = 1; found < count; candidate++) {
+            long h = candidate * 0x9e3779b97f4a7c15L;
+            int slot = (int) (h ^ (h >>> 32)) & mask;
+            if (home < 0) {
+                home = slot;
+            }
+            if (slot == home) {
+                keys[found++] = candidate;
+            }
+        }
+        return keys;
+    }
+}
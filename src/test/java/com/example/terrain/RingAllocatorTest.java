@@ -0,0 +1,100 @@
+package com.example.terrain;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RingAllocatorTest {
+    @Test
+    void allocationsAreAlignedAndCounted() {
+        RingAllocator ring = new RingAllocator(1024, 256);
+        assertEquals(0, ring.allocate(1));
+        assertEquals(256, ring.allocate(300));
+        assertEquals(768, ring.getUsedBytes());
+        assertEquals(-1, ring.allocate(2048));
+        assertEquals(-1, ring.allocate(0));
+    }
+
+    @Test
+    void wrapsToStartOnceTailIsFreed() {
+        RingAllocator ring = new RingAllocator(1024, 256);
+        long first = ring.allocate(512);
+        ring.allocate(256);
+        ring.allocate(256);
+        assertEquals(-1, ring.allocate(256));
+        ring.free(first);
+        assertEquals(0, ring.allocate(512));
+        assertEquals(1024, ring.getUsedBytes());
+    }
+
+    @Test
+    void padsTheEndWhenAllocationDoesNotFitBeforeWrap() {
+        RingAllocator ring = new RingAllocator(1024, 256);
+        long first = ring.allocate(512);
+        long second = ring.allocate(256);
+        ring.free(first);
+        assertEquals(0, ring.allocate(512));
+        assertEquals(768, ring.getUsedBytes());
+        ring.free(second);
+        assertEquals(512, ring.getUsedBytes());
+        assertEquals(512, ring.allocate(512));
+    }
+
+    @Test
+    void retiredBlocksAreReclaimedOnlyWhenTheirFenceCompletes() {
+        RingAllocator ring = new RingAllocator(768, 256);
+        long first = ring.allocate(256);
+        long second = ring.allocate(256);
+        assertEquals(512, ring.allocate(256));
+        ring.retire(first, 1);
+        ring.retire(second, 2);
+        ring.reclaim(0);
+        assertEquals(768, ring.getUsedBytes());
+        assertEquals(-1, ring.allocate(256));
+        ring.reclaim(1);
+        assertEquals(512, ring.getUsedBytes());
+        assertEquals(0, ring.allocate(256));
+        assertEquals(-1, ring.allocate(256));
+        ring.reclaim(2);
+        assertEquals(512, ring.getUsedBytes());
+    }
+
+    @Test
+    void retiredBlockBehindLiveTailDoesNotFreeSpace() {
+        RingAllocator ring = new RingAllocator(768, 256);
+        long first = ring.allocate(256);
+        long second = ring.allocate(256);
+        ring.allocate(256);
+        ring.retire(second, 1);
+        ring.reclaim(1);
+        assertEquals(512, ring.getUsedBytes());
+        assertEquals(-1, ring.allocate(256));
+        ring.free(first);
+        assertEquals(0, ring.allocate(256));
+    }
+
+    @Test
+    void liveBlockThatIsNeverRetiredPinsTheTail() {
+        RingAllocator ring = new RingAllocator(768, 256);
+        long leaked = ring.allocate(256);
+        long second = ring.allocate(256);
+        long third = ring.allocate(256);
+        ring.retire(second, 1);
+        ring.retire(third, 1);
+        ring.reclaim(1);
+        assertEquals(256, ring.getUsedBytes());
+        assertEquals(-1, ring.allocate(256));
+        ring.reclaim(Long.MAX_VALUE);
+        assertEquals(-1, ring.allocate(256));
+        ring.free(leaked);
+        assertEquals(0, ring.getUsedBytes());
+        assertEquals(0, ring.allocate(768));
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new RingAllocator(0, 256));
+        assertThrows(IllegalArgumentException.class, () -> new RingAllocator(1024, 100));
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.terrain;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TerrainVertexFormatTest {
+    private static final float HEIGHT_TOLERANCE = 1.0f / TerrainVertexFormat.HEIGHT_SCALE;
+
+    @Test
+    void vertexRoundTripsThroughShaderLayout() {
+        float[][] normals = {{0.0f, 1.0f, 0.0f}, {0.6f, 0.8f, 0.0f}, {-0.3f, 0.5f, -0.81f}, {0.2f, -0.9f, 0.38f}};
+        for (float[] normal : normals) {
+            float length = (float) Math.sqrt(normal[0] * normal[0] + normal[1] * normal[1] + normal[2] * normal[2]);
+            float nx = normal[0] / length;
+            float ny = normal[1] / length;
+            float nz = normal[2] / length;
+            ByteBuffer buffer = ByteBuffer.allocate(TerrainVertexFormat.STRIDE).order(ByteOrder.nativeOrder());
+            TerrainVertexFormat.put(buffer, 17, 42, 12.34f, nx, ny, nz, 0.25f, 0.5f, -7.5f);
+            assertEquals(TerrainVertexFormat.STRIDE, buffer.position());
+
+            int positionX = buffer.getShort(TerrainVertexFormat.POSITION_OFFSET) & 0xffff;
+            int positionY = buffer.getShort(TerrainVertexFormat.POSITION_OFFSET + 2) & 0xffff;
+            int positionZ = buffer.getShort(TerrainVertexFormat.POSITION_OFFSET + 4) & 0xffff;
+            assertEquals(17, positionX);
+            assertEquals(42, positionZ);
+            assertEquals(12.34f, positionY / TerrainVertexFormat.HEIGHT_SCALE + TerrainVertexFormat.HEIGHT_MIN, HEIGHT_TOLERANCE);
+
+            float[] decoded = decodeOctahedral(snorm(buffer.get(TerrainVertexFormat.NORMAL_OFFSET)),
+                    snorm(buffer.get(TerrainVertexFormat.NORMAL_OFFSET + 1)));
+            assertEquals(nx, decoded[0], 0.02f);
+            assertEquals(ny, decoded[1], 0.02f);
+            assertEquals(nz, decoded[2], 0.02f);
+
+            assertEquals(0.25f, (buffer.get(TerrainVertexFormat.BIOME_OFFSET) & 0xff) / 255.0f, 1.0f / 255.0f);
+            assertEquals(0.5f, (buffer.get(TerrainVertexFormat.BIOME_OFFSET + 1) & 0xff) / 255.0f, 1.0f / 255.0f);
+            assertEquals(-7.5f, TerrainVertexFormat.decodeHeight(buffer.getShort(TerrainVertexFormat.MORPH_OFFSET)),
+                    HEIGHT_TOLERANCE);
+        }
+    }
+
+    private static float snorm(byte value) {
+        return Math.max(value / 127.0f, -1.0f);
+    }
+
+    private static float[] decodeOctahedral(float ex, float ey) {
+        float x = ex;
+        float y = 1.0f - Math.abs(ex) - Math.abs(ey);
+        float z = ey;
+        if (y < 0.0f) {
+            x = (1.0f - Math.abs(ey)) * (ex >= 0.0f ? 1.0f : -1.0f);
+            z = (1.0f - Math.abs(ex)) * (ey >= 0.0f ? 1.0f : -1.0f);
+        }
+        float length = (float) Math.sqrt(x * x + y * y + z * z);
+        return new float[]{x / length, y / length, z / length};
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.terrain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UploadStageTest {
+    private final AtomicLong clock = new AtomicLong();
+    private final List<String> uploaded = new ArrayList<>();
+
+    @Test
+    void uploadsNearestFirst() {
+        UploadStage<String> stage = new UploadStage<>();
+        stage.offer(5, 0, 10, "far");
+        stage.offer(0, 1, 10, "near");
+        stage.offer(-2, 2, 10, "middle");
+        UploadBudget budget = budget(1000, 1000);
+        budget.beginFrame();
+        assertEquals(3, stage.drain(0, 0, budget, this::upload));
+        assertEquals(List.of("near", "middle", "far"), uploaded);
+        assertEquals(0, stage.pendingCount());
+    }
+
+    @Test
+    void carriesOverWhenByteBudgetRunsOut() {
+        UploadStage<String> stage = new UploadStage<>();
+        stage.offer(0, 0, 60, "a");
+        stage.offer(1, 0, 60, "b");
+        stage.offer(2, 0, 60, "c");
+        UploadBudget budget = budget(100, 1000);
+        budget.beginFrame();
+        assertEquals(2, stage.drain(0, 0, budget, this::upload));
+        assertEquals(1, stage.pendingCount());
+        budget.beginFrame();
+        assertEquals(1, stage.drain(0, 0, budget, this::upload));
+        assertEquals(List.of("a", "b", "c"), uploaded);
+    }
+
+    @Test
+    void carriesOverWhenTimeBudgetRunsOut() {
+        UploadStage<String> stage = new UploadStage<>();
+        stage.offer(0, 0, 1, "a");
+        stage.offer(1, 0, 1, "b");
+        UploadBudget budget = budget(1000, 1);
+        budget.beginFrame();
+        assertEquals(1, stage.drain(0, 0, budget, item -> {
+            clock.addAndGet(2_000);
+            return upload(item);
+        }));
+        assertEquals(List.of("a"), uploaded);
+        budget.beginFrame();
+        assertEquals(1, stage.drain(0, 0, budget, this::upload));
+        assertEquals(List.of("a", "b"), uploaded);
+    }
+
+    @Test
+    void firstUploadOfAFrameIgnoresTheBudget() {
+        UploadStage<String> stage = new UploadStage<>();
+        stage.offer(0, 0, 500, "big");
+        stage.offer(1, 0, 1, "small");
+        UploadBudget budget = budget(100, 1000);
+        budget.beginFrame();
+        assertEquals(1, stage.drain(0, 0, budget, this::upload));
+        assertEquals(List.of("big"), uploaded);
+        assertEquals(1, stage.pendingCount());
+    }
+
+    @Test
+    void droppedItemsAreRemovedWithoutChargingTheBudget() {
+        UploadStage<String> stage = new UploadStage<>();
+        stage.offer(0, 0, 100, "stale");
+        stage.offer(1, 0, 100, "fresh");
+        UploadBudget budget = budget(100, 1000);
+        budget.beginFrame();
+        assertEquals(1, stage.drain(0, 0, budget, item -> item.equals("stale") ? UploadStage.Result.DROPPED : upload(item)));
+        assertEquals(List.of("fresh"), uploaded);
+        assertEquals(100, budget.getUsedBytes());
+        assertEquals(0, stage.pendingCount());
+    }
+
+    @Test
+    void deferredItemStaysQueuedWithEverythingBehindIt() {
+        UploadStage<String> stage = new UploadStage<>();
+        stage.offer(0, 0, 1, "blocked");
+        stage.offer(1, 0, 1, "behind");
+        UploadBudget budget = budget(1000, 1000);
+        budget.beginFrame();
+        assertEquals(0, stage.drain(0, 0, budget, item -> UploadStage.Result.DEFERRED));
+        assertEquals(2, stage.pendingCount());
+        assertEquals(0, budget.getUploads());
+        budget.beginFrame();
+        assertEquals(2, stage.drain(0, 0, budget, this::upload));
+        assertEquals(List.of("blocked", "behind"), uploaded);
+    }
+
+    @Test
+    void clearHandsQueuedAndWaitingItemsToDiscard() {
+        UploadStage<String> stage = new UploadStage<>();
+        stage.offer(0, 0, 1, "waiting");
+        UploadBudget budget = budget(1000, 1000);
+        budget.beginFrame();
+        assertEquals(0, stage.drain(0, 0, budget, item -> UploadStage.Result.DEFERRED));
+        stage.offer(1, 0, 1, "incoming");
+        List<String> discarded = new ArrayList<>();
+        stage.clear(discarded::add);
+        assertEquals(List.of("waiting", "incoming"), discarded);
+        assertEquals(0, stage.pendingCount());
+        assertEquals(0, stage.drain(0, 0, budget, this::upload));
+    }
+
+    private UploadBudget budget(long bytes, long micros) {
+        return new UploadBudget(bytes, micros, clock::get);
+    }
+
+    private UploadStage.Result upload(String item) {
+        uploaded.add(item);
+        return UploadStage.Result.UPLOADED;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.terrain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class VectorNoise2DTest {
+    private static final int[] SEEDS = {0, 1, 1337, -42, Integer.MAX_VALUE};
+    private static final int OCTAVES = 5;
+    private static final float LACUNARITY = 2.0f;
+    private static final float GAIN = 0.5f;
+
+    @Test
+    void vectorRowMatchesScalarRowAndPointwiseFbm() {
+        VectorNoise2D kernel = createKernel();
+        Random random = new Random(7);
+        for (int seed : SEEDS) {
+            Noise2D noise = new Noise2D(seed);
+            for (int count = 1; count <= 67; count++) {
+                float z = (random.nextFloat() - 0.5f) * 2000.0f;
+                float[] xs = new float[count];
+                float start = (random.nextFloat() - 0.5f) * 2000.0f;
+                for (int i = 0; i < count; i++) {
+                    xs[i] = start + i * 0.37f;
+                }
+                assertRowsMatch(kernel, noise, seed, xs, count, z);
+            }
+        }
+    }
+
+    @Test
+    void vectorRowMatchesAcrossNegativeCellBoundaries() {
+        VectorNoise2D kernel = createKernel();
+        float[] xs = new float[41];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = -10.0f + i * 0.5f;
+        }
+        for (int seed : SEEDS) {
+            Noise2D noise = new Noise2D(seed);
+            for (float z : new float[]{-3.0f, -0.25f, 0.0f, 0.75f, -1024.5f}) {
+                assertRowsMatch(kernel, noise, seed, xs, xs.length, z);
+            }
+        }
+    }
+
+    @Test
+    void vectorDerivativeRowMatchesScalarDerivativeRow() {
+        VectorNoise2D kernel = createKernel();
+        Random random = new Random(11);
+        for (int seed : SEEDS) {
+            Noise2D noise = new Noise2D(seed);
+            for (int count = 1; count <= 67; count++) {
+                float z = (random.nextFloat() - 0.5f) * 2000.0f;
+                float[] xs = new float[count];
+                float start = (random.nextFloat() - 0.5f) * 2000.0f;
+                for (int i = 0; i < count; i++) {
+                    xs[i] = start + i * 0.37f;
+                }
+                assertDerivativeRowsMatch(kernel, noise, seed, xs, count, z);
+            }
+        }
+    }
+
+    @Test
+    void vectorDerivativeRowMatchesAcrossNegativeCellBoundaries() {
+        VectorNoise2D kernel = createKernel();
+        float[] xs = new float[41];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = -10.0f + i * 0.5f;
+        }
+        for (int seed : SEEDS) {
+            Noise2D noise = new Noise2D(seed);
+            for (float z : new float[]{-3.0f, -0.25f, 0.0f, 0.75f, -1024.5f}) {
+                assertDerivativeRowsMatch(kernel, noise, seed, xs, xs.length, z);
+            }
+        }
+    }
+
+    private static void assertDerivativeRowsMatch(VectorNoise2D kernel, Noise2D noise, int seed, float[] xs, int count, float z) {
+        float[][] vector = new float[3][count];
+        float[][] scalar = new float[3][count];
+        float[] plain = new float[count];
+        kernel.fbmRowDerivatives(seed, xs, count, z, OCTAVES, LACUNARITY, GAIN, vector[0], vector[1], vector[2]);
+        noise.fbmRowDerivativesScalar(xs, count, z, OCTAVES, LACUNARITY, GAIN, scalar[0], scalar[1], scalar[2]);
+        kernel.fbmRow(seed, xs, count, z, OCTAVES, LACUNARITY, GAIN, plain);
+        String[] names = {"value", "d/dx", "d/dz"};
+        for (int i = 0; i < count; i++) {
+            String where = "seed=" + seed + " count=" + count + " x=" + xs[i] + " z=" + z;
+            for (int output = 0; output < names.length; output++) {
+                assertEquals(Float.floatToRawIntBits(scalar[output][i]), Float.floatToRawIntBits(vector[output][i]),
+                        names[output] + " vector vs row " + where);
+            }
+            assertEquals(Float.floatToRawIntBits(plain[i]), Float.floatToRawIntBits(vector[0][i]), "value vs fbmRow " + where);
+        }
+    }
+
+    private static void assertRowsMatch(VectorNoise2D kernel, Noise2D noise, int seed, float[] xs, int count, float z) {
+        float[] vector = new float[count];
+        float[] scalar = new float[count];
+        kernel.fbmRow(seed, xs, count, z, OCTAVES, LACUNARITY, GAIN, vector);
+        noise.fbmRowScalar(xs, count, z, OCTAVES, LACUNARITY, GAIN, scalar);
+        for (int i = 0; i < count; i++) {
+            float pointwise = noise.fbm(xs[i], z, OCTAVES, LACUNARITY, GAIN);
+            String where = "seed=" + seed + " count=" + count + " x=" + xs[i] + " z=" + z;
+            assertEquals(Float.floatToRawIntBits(scalar[i]), Float.floatToRawIntBits(vector[i]), "vector vs row " + where);
+            assertEquals(Float.floatToRawIntBits(pointwise), Float.floatToRawIntBits(vector[i]), "vector vs fbm " + where);
+        }
+    }
+
+    private static VectorNoise2D createKernel() {
+        try {
+            return new VectorNoise2D();
+        } catch (UnsupportedOperationException e) {
+            assumeTrue(false, e.getMessage());
+            return null;
+        }
+    }
+}